@@ -0,0 +1,114 @@
+/**
+ * <code>Analysis</code> class. Keeps a search running on the board's current position for the analysis display,
+ * finding the best few lines with no time limit.
+ * Moving, undoing or redoing restarts it on the new position: the old search is told to stop and its thread is
+ * joined, which takes well under a millisecond, so however fast the restarts come only one search ever runs. The
+ * table is kept, so the new search starts warm.
+ * The display polls <code>getLines</code> on its own schedule rather than being called back for every line found.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+class Analysis {
+	// CONSTANTS //
+	static final int DEFAULT_LINES = 3;
+	static final int SHOWN_MOVES = 8;  // moves shown per line
+
+	// FIELDS //
+	BoardPanel boardPanel;
+	int lineCount;
+	int threadCount;
+	TranspositionTable table;
+	Search search;      // the running search, null if stopped
+	Thread thread;      // the thread running it
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates an analysis of a board, not yet running.
+	 * @param boardPanel The board to analyze
+	 */
+	Analysis(BoardPanel boardPanel) {
+		this.boardPanel = boardPanel;
+		this.lineCount = DEFAULT_LINES;
+		// Leave the event thread a core of its own
+		this.threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		this.table = new TranspositionTable();
+	}
+
+	// METHODS //
+
+	/**
+	 * Starts analyzing the board's current position, stopping any analysis of an older one.
+	 * Must be called on the event thread.
+	 */
+	void restart() {
+		stop();
+		final Search search = new Search(table);
+		search.setThreads(threadCount);
+		search.setLines(lineCount);
+		final Position root = new Position(boardPanel.position);
+		this.search = search;
+		thread = new Thread(() -> search.think(root, Search.MAX_DEPTH, 0, 0), "Analysis");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Stops the analysis and waits for its thread to end. Must be called on the event thread.
+	 */
+	void stop() {
+		if(search != null) {
+			search.stop();
+			try {
+				thread.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			search = null;
+			thread = null;
+		}
+	}
+
+	/**
+	 * Checks whether the analysis is on.
+	 * @return <code>true</code> if a search is running or has finished on the current position
+	 */
+	boolean isRunning() {
+		return search != null;
+	}
+
+	/**
+	 * Gets the lines found so far. Cheap enough to call on every tick of a timer: the array is only replaced when a
+	 * line is found, so comparing it with the last one tells whether anything changed.
+	 * @return Depth, score, then the moves of each line, best first; empty if stopped
+	 */
+	int[][] getLines() {
+		return search == null ? new int[0][] : search.lines;
+	}
+
+	/**
+	 * Writes lines out for display, one per line of text: depth, score in pawns for the side to move (or moves to
+	 * mate, marked #), then the first moves.
+	 * @param lines Lines from <code>getLines</code>
+	 * @return The text
+	 */
+	static String describe(int[][] lines) {
+		StringBuilder text = new StringBuilder();
+		for(int[] line : lines) {
+			int score = line[1];
+			text.append(line[0]).append("  ");
+			if(Math.abs(score) >= Search.MATE - Search.MAX_PLY) {
+				int plies = Search.MATE - Math.abs(score);
+				text.append(score > 0 ? "#" : "#-").append((plies + 1) / 2);
+			} else
+				text.append(String.format("%+.2f", score / 100.0));
+			for(int i = 2; i < Math.min(line.length, 2 + SHOWN_MOVES); i++)
+				text.append(' ').append(Move.toString(line[i]));
+			text.append('\n');
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * <code>Attacks</code> class. Attack tables for every piece type, built once when the class is loaded.
+ * Knights, kings and pawns use one mask per square; bishops and rooks use magic bitboards, so the attacks of any
+ * slider from any square with any occupancy cost one multiply, one shift and one lookup.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+abstract class Attacks {
+	// CONSTANTS //
+	static final long[] KNIGHT = new long[64];
+	static final long[] KING = new long[64];
+	static final long[][] PAWN = new long[3][64]; // 1st index -> Piece.WHITE or Piece.BLACK
+
+	// Relevant occupancy for each slider square: its rays, without the board edge at the end of each one
+	static final long[] ROOK_MASK = new long[64];
+	static final long[] BISHOP_MASK = new long[64];
+	static final int[] ROOK_SHIFT = new int[64];
+	static final int[] BISHOP_SHIFT = new int[64];
+	static final long[][] ROOK_TABLE = new long[64][];
+	static final long[][] BISHOP_TABLE = new long[64][];
+
+	// Squares strictly between two squares on a line, and the whole line through them; 0 if they aren't aligned
+	static final long[][] BETWEEN = new long[64][64];
+	static final long[][] LINE = new long[64][64];
+
+	// Found with a sparse random search; each one maps every relevant occupancy to a slot without harmful collisions
+	static final long[] ROOK_MAGIC = {
+		0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+		0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+		0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+		0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+		0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+		0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+		0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+		0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+		0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+		0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+		0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+		0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+		0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+		0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+		0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+		0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+	};
+	static final long[] BISHOP_MAGIC = {
+		0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+		0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+		0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+		0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+		0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+		0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+		0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+		0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+		0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+		0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+		0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+		0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+		0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+		0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+		0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+		0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+	};
+
+	// Ray directions, as {rank step, file step}
+	private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+	private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+	private static final int[][] KNIGHT_OFFSETS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+	private static final int[][] KING_OFFSETS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+	static {
+		for(int square = 0; square < 64; square++) {
+			KNIGHT[square] = leaperAttacks(square, KNIGHT_OFFSETS);
+			KING[square] = leaperAttacks(square, KING_OFFSETS);
+			PAWN[Piece.WHITE][square] = leaperAttacks(square, new int[][] {{1, -1}, {1, 1}});
+			PAWN[Piece.BLACK][square] = leaperAttacks(square, new int[][] {{-1, -1}, {-1, 1}});
+
+			ROOK_MASK[square] = relevantOccupancy(square, ROOK_DIRECTIONS);
+			ROOK_SHIFT[square] = 64 - Long.bitCount(ROOK_MASK[square]);
+			ROOK_TABLE[square] = buildTable(square, ROOK_MASK[square], ROOK_MAGIC[square], ROOK_SHIFT[square], ROOK_DIRECTIONS);
+			BISHOP_MASK[square] = relevantOccupancy(square, BISHOP_DIRECTIONS);
+			BISHOP_SHIFT[square] = 64 - Long.bitCount(BISHOP_MASK[square]);
+			BISHOP_TABLE[square] = buildTable(square, BISHOP_MASK[square], BISHOP_MAGIC[square], BISHOP_SHIFT[square], BISHOP_DIRECTIONS);
+		}
+		for(int from = 0; from < 64; from++) {
+			for(int to = 0; to < 64; to++) {
+				long ends = 1L << from | 1L << to;
+				if(from == to)
+					continue;
+				if((rook(from, 0) & 1L << to) != 0) {
+					BETWEEN[from][to] = rook(from, ends) & rook(to, ends);
+					LINE[from][to] = (rook(from, 0) & rook(to, 0)) | ends;
+				} else if((bishop(from, 0) & 1L << to) != 0) {
+					BETWEEN[from][to] = bishop(from, ends) & bishop(to, ends);
+					LINE[from][to] = (bishop(from, 0) & bishop(to, 0)) | ends;
+				}
+			}
+		}
+	}
+
+	// METHODS //
+
+	/**
+	 * Gets the squares a rook attacks
+	 * @param square The square of the rook
+	 * @param occupied All occupied squares
+	 * @return The attacked squares, including the first piece on each line
+	 */
+	static long rook(int square, long occupied) {
+		return ROOK_TABLE[square][(int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+	}
+
+	/**
+	 * Gets the squares a bishop attacks
+	 * @param square The square of the bishop
+	 * @param occupied All occupied squares
+	 * @return The attacked squares, including the first piece on each diagonal
+	 */
+	static long bishop(int square, long occupied) {
+		return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+	}
+
+	/**
+	 * Gets the squares a queen attacks
+	 * @param square The square of the queen
+	 * @param occupied All occupied squares
+	 * @return The attacked squares, including the first piece on each line
+	 */
+	static long queen(int square, long occupied) {
+		return rook(square, occupied) | bishop(square, occupied);
+	}
+
+	/**
+	 * Builds the mask of squares a piece jumps to.
+	 */
+	private static long leaperAttacks(int square, int[][] offsets) {
+		long attacks = 0;
+		for(int[] offset : offsets) {
+			int rank = (square >>> 3) + offset[0];
+			int file = (square & 7) + offset[1];
+			if(rank >= 0 && rank < 8 && file >= 0 && file < 8)
+				attacks |= 1L << (rank * 8 + file);
+		}
+		return attacks;
+	}
+
+	/**
+	 * Walks every ray one square at a time. Only used to fill the tables.
+	 */
+	private static long slidingAttacks(int square, long occupied, int[][] directions) {
+		long attacks = 0;
+		for(int[] direction : directions) {
+			int rank = (square >>> 3) + direction[0];
+			int file = (square & 7) + direction[1];
+			while(rank >= 0 && rank < 8 && file >= 0 && file < 8) {
+				long bit = 1L << (rank * 8 + file);
+				attacks |= bit;
+				if((occupied & bit) != 0)
+					break;
+				rank += direction[0];
+				file += direction[1];
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Gets the squares on a slider's rays whose occupancy matters, i.e. all but the last square of each ray.
+	 */
+	private static long relevantOccupancy(int square, int[][] directions) {
+		long mask = 0;
+		for(int[] direction : directions) {
+			int rank = (square >>> 3) + direction[0];
+			int file = (square & 7) + direction[1];
+			while(rank + direction[0] >= 0 && rank + direction[0] < 8 && file + direction[1] >= 0 && file + direction[1] < 8) {
+				mask |= 1L << (rank * 8 + file);
+				rank += direction[0];
+				file += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Fills one square's magic table by going through every subset of its relevant occupancy.
+	 */
+	private static long[] buildTable(int square, long mask, long magic, int shift, int[][] directions) {
+		long[] table = new long[1 << (64 - shift)];
+		long subset = 0;
+		do {
+			table[(int) ((subset * magic) >>> shift)] = slidingAttacks(square, subset, directions);
+			subset = (subset - mask) & mask;
+		} while(subset != 0);
+		return table;
+	}
+}
@@ -0,0 +1,295 @@
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * <code>Benchmark</code> class. Times the hot paths of <code>MoveRules</code> and <code>Position</code> and prints
+ * ns/op and throughput, so results can be compared between releases.
+ * Each benchmark runs over a fixed set of positions, warms up first, then keeps the fastest of several rounds.
+ * Run with <code>smp [threads] [depth]</code> instead to print how the search scales with threads, or with
+ * <code>pgn [file]</code> to time reading PGN, from a file or from random games written first.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.5
+ * @since 18 OCT 2026
+ */
+abstract class Benchmark {
+	// CONSTANTS //
+	static final String[] POSITIONS = {
+			Position.START_FEN,
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+			"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+	};
+	static final long WARMUP_NANOS = 1000000000L;
+	static final int ROUNDS = 5;
+	static final long ROUND_NANOS = 200000000L;
+	static final int SMP_DEFAULT_DEPTH = 7;
+	static final int PGN_RANDOM_GAMES = 20000;
+	static final int PGN_MAX_PLIES = 200;
+
+	// FIELDS //
+	// Results are folded in here so the JIT can't drop the measured work
+	static long sink;
+
+	/**
+	 * One unit of measured work.
+	 */
+	interface Operation {
+		/**
+		 * Runs the work once.
+		 * @return Some value depending on the work, fed into <code>sink</code>
+		 */
+		long run();
+	}
+
+	// METHODS //
+
+	/**
+	 * Times an operation and prints the result
+	 * @param name The name to print
+	 * @param operation The work to time
+	 * @return The best time per operation, in nanoseconds
+	 */
+	static double measure(String name, Operation operation) {
+		long end = System.nanoTime() + WARMUP_NANOS;
+		while(System.nanoTime() < end)
+			sink += operation.run();
+		double best = Double.MAX_VALUE;
+		for(int round = 0; round < ROUNDS; round++) {
+			long count = 0;
+			long start = System.nanoTime();
+			long now;
+			do {
+				for(int i = 0; i < 100; i++)
+					sink += operation.run();
+				count += 100;
+				now = System.nanoTime();
+			} while(now - start < ROUND_NANOS);
+			best = Math.min(best, (double) (now - start) / count);
+		}
+		System.out.println(String.format("%-28s %12.1f ns/op %,16.0f ops/sec", name, best, 1e9 / best));
+		return best;
+	}
+
+	/**
+	 * Searches every position to a fixed depth with 1 to <code>maxThreads</code> threads, and prints time-to-depth,
+	 * nodes/sec and speedup over one thread. Each run starts from an empty table of the same size.
+	 * @param maxThreads The most threads to try
+	 * @param depth The depth to search to
+	 */
+	static void scaling(int maxThreads, int depth) {
+		System.out.println(String.format("%-8s %12s %16s %14s %8s", "threads", "time (ms)", "nodes", "nodes/sec",
+				"speedup"));
+		double baseTime = 0;
+		for(int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+			Search search = new Search(new TranspositionTable(TranspositionTable.DEFAULT_MB * 4));
+			search.setThreads(threads);
+			long nodes = 0;
+			long start = System.nanoTime();
+			for(String fen : POSITIONS) {
+				search.table.clear();
+				search.reset();
+				sink += search.think(Position.fromFen(fen), depth, 0, 0);
+				nodes += search.totalNodes();
+			}
+			double time = (System.nanoTime() - start) / 1e6;
+			if(threads == 1)
+				baseTime = time;
+			System.out.println(String.format("%-8d %12.0f %,16d %,14.0f %7.2fx", threads, time, nodes,
+					nodes * 1000 / time, baseTime / time));
+			if(threads >= maxThreads)
+				break;
+		}
+	}
+
+	/**
+	 * Reads every game in some PGN text and prints games/sec and MB/sec.
+	 * @param input The text
+	 * @param bytes The size of the text in bytes
+	 * @throws IOException If the text can't be read
+	 */
+	static void readPgn(Reader input, long bytes) throws IOException {
+		long games = 0;
+		long plies = 0;
+		long errors = 0;
+		long start = System.nanoTime();
+		try(PgnReader reader = new PgnReader(input)) {
+			while(reader.hasNext()) {
+				PgnGame game = reader.next();
+				games++;
+				plies += game.moveCount;
+				if(game.error != null)
+					errors++;
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%-28s %,12d games %,10d plies %,6d errors %,12.0f games/sec %8.1f MB/sec",
+				"PgnReader", games, plies, errors, games / seconds, bytes / 1e6 / seconds));
+	}
+
+	/**
+	 * Writes random legal games as PGN and prints games/sec and MB/sec.
+	 * @param games How many games
+	 * @return The PGN text
+	 * @throws IOException Never, as it writes to memory
+	 */
+	static String writeRandomPgn(int games) throws IOException {
+		Random random = new Random(1);
+		StringBuilder pgn = new StringBuilder();
+		int[] moves = new int[Move.MAX_MOVES];
+		int[] played = new int[PGN_MAX_PLIES];
+		Map<String, String> tags = new LinkedHashMap<>();
+		Position start = Position.fromFen(Position.START_FEN);
+		Position position = new Position();
+		long time = 0;
+		for(int game = 0; game < games; game++) {
+			position.copyFrom(start);
+			int plies = 0;
+			int status = MoveRules.PLAYING;
+			while(plies < PGN_MAX_PLIES && (status = MoveRules.evaluateGameStatus(position)) == MoveRules.PLAYING) {
+				int count = MoveRules.generateLegalMoves(position, moves);
+				played[plies] = moves[random.nextInt(count)];
+				position.makeMove(played[plies++]);
+			}
+			tags.put("Event", "Random game " + (game + 1));
+			tags.put("Result", PgnWriter.result(status));
+			long begin = System.nanoTime();
+			PgnWriter.write(pgn, tags, start, played, plies, PgnWriter.result(status));
+			time += System.nanoTime() - begin;
+		}
+		System.out.println(String.format("%-28s %,12d games %,12.0f games/sec %8.1f MB/sec", "PgnWriter", games,
+				games / (time / 1e9), pgn.length() / 1e6 / (time / 1e9)));
+		return pgn.toString();
+	}
+
+	/**
+	 * Runs every benchmark, the thread scaling table, or the PGN benchmark.
+	 * @param args Nothing; <code>smp</code> followed by an optional thread count and depth; or <code>pgn</code>
+	 * followed by an optional file
+	 * @throws IOException If the PGN file can't be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length > 0 && args[0].equals("smp")) {
+			int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+			scaling(maxThreads, args.length > 2 ? Integer.parseInt(args[2]) : SMP_DEFAULT_DEPTH);
+			return;
+		}
+		if(args.length > 0 && args[0].equals("pgn")) {
+			if(args.length > 1) {
+				Path path = Paths.get(args[1]);
+				readPgn(new InputStreamReader(Files.newInputStream(path), StandardCharsets.ISO_8859_1), Files.size(path));
+			} else {
+				String pgn = writeRandomPgn(PGN_RANDOM_GAMES);
+				readPgn(new StringReader(pgn), pgn.length());
+			}
+			return;
+		}
+		final Position[] positions = new Position[POSITIONS.length];
+		final Piece[][][] grids = new Piece[POSITIONS.length][][];
+		for(int i = 0; i < POSITIONS.length; i++) {
+			positions[i] = Position.fromFen(POSITIONS[i]);
+			grids[i] = new Piece[10][10];
+			for(int rank = 0; rank < 10; rank++)
+				for(int file = 0; file < 10; file++)
+					grids[i][rank][file] = Piece.of(Piece.EMPTY);
+			positions[i].toGrid(grids[i]);
+		}
+		final int[] moves = new int[Move.MAX_MOVES];
+
+		measure("getPossMoves (all pieces)", () -> {
+			long total = 0;
+			for(Position position : positions) {
+				int[] squares = position.pieceList[position.sideToMove()];
+				for(int i = 0; i < position.pieceCount[position.sideToMove()]; i++) {
+					int square = squares[i];
+					total += MoveRules.getPossMoves(position, Position.gridRank(square), Position.gridFile(square))[4][4];
+				}
+			}
+			return total;
+		});
+		measure("generateLegalMoves", () -> {
+			long total = 0;
+			for(Position position : positions)
+				total += MoveRules.generateLegalMoves(position, moves);
+			return total;
+		});
+		measure("isSquareAttacked (64 sq)", () -> {
+			long total = 0;
+			for(Position position : positions)
+				for(int square = 0; square < 64; square++)
+					if(MoveRules.isSquareAttacked(position, square, Piece.BLACK))
+						total++;
+			return total;
+		});
+		measure("isCheckmate", () -> {
+			long total = 0;
+			for(Position position : positions)
+				if(MoveRules.isCheckmate(position))
+					total++;
+			return total;
+		});
+		measure("getBoardAfterMove (grid)", () -> {
+			long total = 0;
+			for(int i = 0; i < positions.length; i++) {
+				int count = MoveRules.generateLegalMoves(positions[i], moves);
+				for(int j = 0; j < count; j++) {
+					int from = Move.from(moves[j]);
+					int to = Move.to(moves[j]);
+					total += MoveRules.getBoardAfterMove(grids[i], Position.gridRank(from), Position.gridFile(from),
+							Position.gridRank(to), Position.gridFile(to), Move.type(moves[j])).length;
+				}
+			}
+			return total;
+		});
+		final Position parsed = new Position();
+		measure("Fen.parse", () -> {
+			long total = 0;
+			for(String fen : POSITIONS) {
+				Fen.parse(fen, parsed);
+				total += parsed.key;
+			}
+			return total;
+		});
+		final StringBuilder written = new StringBuilder(100);
+		measure("Fen.write", () -> {
+			long total = 0;
+			for(Position position : positions) {
+				written.setLength(0);
+				Fen.write(position, written);
+				total += written.length();
+			}
+			return total;
+		});
+		measure("makeMove + unmakeMove", () -> {
+			long total = 0;
+			for(Position position : positions) {
+				int count = MoveRules.generateLegalMoves(position, moves);
+				for(int j = 0; j < count; j++) {
+					long undo = position.makeMove(moves[j]);
+					total += position.occupied;
+					position.unmakeMove(moves[j], undo);
+				}
+			}
+			return total;
+		});
+
+		long nodes = 0;
+		long start = System.nanoTime();
+		for(Position position : positions)
+			nodes += Perft.perft(position, 4);
+		long time = System.nanoTime() - start;
+		System.out.println(String.format("%-28s %,12d nodes %,16.0f nodes/sec", "perft(4)", nodes, nodes * 1e9 / time));
+		if(sink == 42)
+			System.out.println();
+	}
+}
@@ -0,0 +1,542 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * <code>Bitbase</code> class. Perfect-play tables for king and queen, king and rook, king and pawn, and king, bishop
+ * and knight against a lone king: for every position, whether the side to move wins, draws or loses, and in how many
+ * plies the mate comes.
+ * <p>
+ * The tables are built offline by retrograde analysis (run <code>main</code>): every checkmate is found first, then
+ * results are worked backwards move by move, one ply per round, until nothing changes. What is left is drawn.
+ * KQK, KRK and KBNK are built side by side; KPK follows, since its promotions lead into KQK and KRK.
+ * <p>
+ * Positions are stored with the stronger side as white and its king on files a-d, the rest mirrored to match.
+ * Each file holds a header, then a 2-bit win/draw/loss value per position, then a byte of distance to mate per
+ * position. Files are memory-mapped on first use, so a probe is an index computation and two byte reads.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+class Bitbase {
+	// CONSTANTS //
+	static final String DIRECTORY = "bitbases";
+	static final int MAX_PIECES = 4;
+	// Tables
+	static final int KQK = 0;
+	static final int KRK = 1;
+	static final int KPK = 2;
+	static final int KBNK = 3;
+	static final String[] NAMES = {"KQK", "KRK", "KPK", "KBNK"};
+	// The stronger side's pieces besides its king, as white piece types
+	static final int[][] MATERIAL = {
+			{Piece.WHITE_QUEEN},
+			{Piece.WHITE_ROOK},
+			{Piece.WHITE_PAWN},
+			{Piece.WHITE_BISHOP, Piece.WHITE_KNIGHT}
+	};
+	// Results, for the side to move
+	static final int ILLEGAL = 0;
+	static final int DRAW = 1;
+	static final int WIN = 2;
+	static final int LOSS = 3;
+	static final int NOT_FOUND = -1;
+
+	private static final int MAGIC = 0x42420001;
+	private static final int HEADER_SIZE = 8;
+	// Sides to move in an index
+	private static final int STRONG = 0;
+	private static final int WEAK = 1;
+
+	// FIELDS //
+	// Loaded tables, null until first probed. Search threads read them without locking, so they are published
+	// through an atomic array; missing is only touched inside get
+	private static final AtomicReferenceArray<Bitbase> tables = new AtomicReferenceArray<>(NAMES.length);
+	private static final boolean[] missing = new boolean[NAMES.length];
+
+	final int table;
+	final int[] types;  // MATERIAL[table]
+	final int size;     // number of positions
+	// While generating: one entry per position, null once loaded
+	final byte[] results;
+	final byte[] plies; // plies to mate, for wins and losses
+	byte[] counters;    // moves of the weaker side not yet known to lose
+	// Once loaded: the mapped file, null while generating
+	final ByteBuffer file;
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates a table, either empty for generating or read from a mapped file.
+	 * @param file The mapped file, <code>null</code> to generate the table
+	 */
+	private Bitbase(int table, ByteBuffer file) {
+		this.table = table;
+		this.types = MATERIAL[table];
+		this.size = 2 * 32 * (1 << 6 * (types.length + 1));
+		this.file = file;
+		results = file == null ? new byte[size] : null;
+		plies = file == null ? new byte[size] : null;
+	}
+
+	// METHODS //
+
+	/**
+	 * Looks up a position, if its material has a table and the table file is there
+	 * @param position The position
+	 * @return <code>NOT_FOUND</code>, or the packed result: <code>WIN</code>, <code>DRAW</code> or
+	 * <code>LOSS</code> for the side to move in bits 0-1, plies to mate from bit 2 (see <code>result</code> and
+	 * <code>plies</code>)
+	 */
+	static int probe(Position position) {
+		// Castling is left out of the tables, and the weaker side has no pawns to take en passant
+		if(Long.bitCount(position.occupied) > MAX_PIECES || position.castlingRights != 0)
+			return NOT_FOUND;
+		int strong;
+		if(position.pieceCount[Piece.BLACK] == 1)
+			strong = Piece.WHITE;
+		else if(position.pieceCount[Piece.WHITE] == 1)
+			strong = Piece.BLACK;
+		else
+			return NOT_FOUND;
+		int offset = strong == Piece.WHITE ? 0 : 6;
+		long[] pieces = position.pieces;
+		int table;
+		int first;
+		int second = 0;
+		switch(position.pieceCount[strong]) {
+			case 2:
+				if(pieces[Piece.WHITE_QUEEN + offset] != 0)
+					table = KQK;
+				else if(pieces[Piece.WHITE_ROOK + offset] != 0)
+					table = KRK;
+				else if(pieces[Piece.WHITE_PAWN + offset] != 0)
+					table = KPK;
+				else
+					return NOT_FOUND;
+				first = Long.numberOfTrailingZeros(pieces[MATERIAL[table][0] + offset]);
+				break;
+			case 3:
+				if(Long.bitCount(pieces[Piece.WHITE_BISHOP + offset]) != 1
+						|| Long.bitCount(pieces[Piece.WHITE_KNIGHT + offset]) != 1)
+					return NOT_FOUND;
+				table = KBNK;
+				first = Long.numberOfTrailingZeros(pieces[Piece.WHITE_BISHOP + offset]);
+				second = Long.numberOfTrailingZeros(pieces[Piece.WHITE_KNIGHT + offset]);
+				break;
+			default:
+				return NOT_FOUND;
+		}
+		Bitbase bitbase = tables.get(table);
+		if(bitbase == null && (bitbase = get(table)) == null)
+			return NOT_FOUND;
+		// Black as the stronger side is stored as white: flip the board top to bottom
+		int flip = strong == Piece.WHITE ? 0 : 56;
+		int side = position.sideToMove() == strong ? STRONG : WEAK;
+		return bitbase.read(index(side, position.kingSquare(strong) ^ flip, position.kingSquare(3 - strong) ^ flip,
+				first ^ flip, second ^ flip, bitbase.types.length));
+	}
+
+	/**
+	 * Gets the result out of a probe.
+	 * @return <code>WIN</code>, <code>DRAW</code> or <code>LOSS</code> for the side to move
+	 */
+	static int result(int probe) {
+		return probe & 3;
+	}
+
+	/**
+	 * Gets the plies to mate out of a probe; 0 for draws, and for the side already checkmated.
+	 */
+	static int plies(int probe) {
+		return probe >>> 2;
+	}
+
+	/**
+	 * Gets a table, mapping its file on first use.
+	 * @return The table, <code>null</code> if its file is missing or unreadable
+	 */
+	private static synchronized Bitbase get(int table) {
+		if(tables.get(table) != null || missing[table])
+			return tables.get(table);
+		Path path = Paths.get(DIRECTORY, NAMES[table] + ".bb");
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			Bitbase bitbase = new Bitbase(table, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			if(bitbase.file.getInt(0) != MAGIC || bitbase.file.getInt(4) != bitbase.size)
+				throw new IOException("Not a " + NAMES[table] + " table: " + path);
+			tables.set(table, bitbase);
+		} catch(IOException e) {
+			missing[table] = true;
+		}
+		return tables.get(table);
+	}
+
+	/**
+	 * Reads a packed result from the mapped file.
+	 */
+	private int read(int index) {
+		int result = file.get(HEADER_SIZE + (index >>> 2)) >>> (index & 3) * 2 & 3;
+		if(result == ILLEGAL)
+			return NOT_FOUND;
+		return result | (file.get(HEADER_SIZE + (size >>> 2) + index) & 0xFF) << 2;
+	}
+
+	/**
+	 * Computes the index of a position, mirroring it left to right if the stronger king is on files e-h
+	 * @param side <code>STRONG</code> or <code>WEAK</code>, whichever is to move
+	 * @param strongKing The stronger side's king square, with the stronger side as white
+	 * @param weakKing The weaker side's king square
+	 * @param first The square of the first piece in <code>MATERIAL</code>
+	 * @param second The square of the second piece, if any
+	 * @param pieceCount How many pieces besides the kings
+	 * @return The index
+	 */
+	private static int index(int side, int strongKing, int weakKing, int first, int second, int pieceCount) {
+		int mirror = (strongKing & 7) > 3 ? 7 : 0;
+		strongKing ^= mirror;
+		int index = (side * 32 + (strongKing >>> 3) * 4 + (strongKing & 7)) * 64 + (weakKing ^ mirror);
+		index = index * 64 + (first ^ mirror);
+		if(pieceCount == 2)
+			index = index * 64 + (second ^ mirror);
+		return index;
+	}
+
+	/**
+	 * Finds the squares attacked by the stronger side
+	 * @param squares Squares of the stronger king, then its pieces
+	 * @param skip The index in <code>squares</code> of a piece to leave out, -1 for none
+	 * @param occupied The occupied squares
+	 * @return The attacked squares
+	 */
+	private long strongAttacks(int[] squares, int skip, long occupied) {
+		long attacks = Attacks.KING[squares[0]];
+		for(int i = 0; i < types.length; i++) {
+			if(i + 1 == skip)
+				continue;
+			int square = squares[i + 1];
+			switch(types[i]) {
+				case Piece.WHITE_PAWN:
+					attacks |= Attacks.PAWN[Piece.WHITE][square];
+					break;
+				case Piece.WHITE_KNIGHT:
+					attacks |= Attacks.KNIGHT[square];
+					break;
+				case Piece.WHITE_BISHOP:
+					attacks |= Attacks.bishop(square, occupied);
+					break;
+				case Piece.WHITE_ROOK:
+					attacks |= Attacks.rook(square, occupied);
+					break;
+				default:
+					attacks |= Attacks.queen(square, occupied);
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Unpacks an index into squares
+	 * @param index The index
+	 * @param squares Filled with the stronger king, the weaker king, then the pieces
+	 * @return <code>STRONG</code> or <code>WEAK</code>, whichever is to move
+	 */
+	private int decode(int index, int[] squares) {
+		for(int i = types.length + 1; i >= 1; i--) {
+			squares[i] = index & 63;
+			index >>>= 6;
+		}
+		int king = index & 31;
+		squares[0] = (king >>> 2) * 8 + (king & 3);
+		return index >>> 5;
+	}
+
+	/**
+	 * Computes the index of a position given as squares, as <code>decode</code> fills them.
+	 */
+	private int index(int side, int[] squares) {
+		return index(side, squares[0], squares[1], squares[2], types.length == 2 ? squares[3] : 0, types.length);
+	}
+
+	/**
+	 * Gets the stronger side's squares out of a decoded position: its king, then its pieces.
+	 */
+	private int[] strongSquares(int[] squares, int[] strong) {
+		strong[0] = squares[0];
+		for(int i = 0; i < types.length; i++)
+			strong[i + 1] = squares[i + 2];
+		return strong;
+	}
+
+	/**
+	 * Sets up one position before the backward search: rules out impossible ones, finds checkmates and stalemates,
+	 * and counts the weaker side's moves.
+	 */
+	private void initialize(int index) {
+		int[] squares = new int[types.length + 2];
+		int[] strong = new int[types.length + 1];
+		int side = decode(index, squares);
+		strongSquares(squares, strong);
+		long occupied = 0;
+		for(int square : squares) {
+			if((occupied & 1L << square) != 0)
+				return; // Two pieces on one square
+			occupied |= 1L << square;
+		}
+		int weakKing = squares[1];
+		if((Attacks.KING[squares[0]] & 1L << weakKing) != 0)
+			return;
+		if(types[0] == Piece.WHITE_PAWN && (squares[2] < 8 || squares[2] >= 56))
+			return;
+		boolean inCheck = (strongAttacks(strong, -1, occupied) & 1L << weakKing) != 0;
+		if(side == STRONG) {
+			if(!inCheck) // The weaker side can't have left its king in check
+				results[index] = DRAW;
+			return;
+		}
+
+		int moves = 0;
+		long withoutKing = occupied ^ 1L << weakKing;
+		long targets = Attacks.KING[weakKing];
+		while(targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			int captured = -1;
+			for(int i = 1; i < strong.length; i++)
+				if(strong[i] == to)
+					captured = i;
+			if(to == strong[0])
+				continue;
+			if((strongAttacks(strong, captured, withoutKing) & 1L << to) == 0)
+				moves++;
+		}
+		results[index] = DRAW;
+		if(moves == 0 && inCheck) {
+			results[index] = LOSS;
+			plies[index] = 0;
+		}
+		counters[index] = (byte) moves;
+	}
+
+	/**
+	 * Builds the table. KPK needs KQK and KRK built first.
+	 * @param queens The finished KQK table, for KPK promotions
+	 * @param rooks The finished KRK table, for KPK promotions
+	 */
+	private void generate(Bitbase queens, Bitbase rooks) {
+		counters = new byte[size];
+		IntStream.range(0, size).parallel().forEach(this::initialize);
+
+		int[] current = new int[1024];
+		int currentCount = 0;
+		for(int index = 0; index < size; index++) {
+			if(results[index] == LOSS) {
+				if(currentCount == current.length)
+					current = Arrays.copyOf(current, currentCount * 2);
+				current[currentCount++] = index;
+			}
+		}
+		// Promotions win whenever the new queen or rook wins; these wins join the backward search at their ply
+		int[][] promotions = new int[256][];
+		int[] promotionCounts = new int[256];
+		int lastPromotion = table == KPK ? findPromotions(queens, rooks, promotions, promotionCounts) : 0;
+
+		int[] squares = new int[types.length + 2];
+		int[] strong = new int[types.length + 1];
+		int[] next = new int[1024];
+		for(int ply = 0; ply < 255 && (currentCount > 0 || ply < lastPromotion); ply++) {
+			int nextCount = 0;
+			for(int i = 0; i < currentCount; i++) {
+				int index = current[i];
+				int side = decode(index, squares);
+				long occupied = 0;
+				for(int square : squares)
+					occupied |= 1L << square;
+				if(side == WEAK) {
+					// Every move that led here wins for the stronger side
+					for(int piece = 0; piece <= types.length; piece++) {
+						int square = squares[piece == 0 ? 0 : piece + 1];
+						long from = unmoves(piece, square, squares, occupied);
+						while(from != 0) {
+							int origin = Long.numberOfTrailingZeros(from);
+							from &= from - 1;
+							squares[piece == 0 ? 0 : piece + 1] = origin;
+							long before = occupied ^ 1L << square ^ 1L << origin;
+							// The weaker king mustn't have been in check with the stronger side to move
+							if((strongAttacks(strongSquares(squares, strong), -1, before) & 1L << squares[1]) == 0) {
+								int previous = index(STRONG, squares);
+								if(results[previous] == DRAW) {
+									results[previous] = WIN;
+									plies[previous] = (byte) (ply + 1);
+									if(nextCount == next.length)
+										next = Arrays.copyOf(next, nextCount * 2);
+									next[nextCount++] = previous;
+								}
+							}
+							squares[piece == 0 ? 0 : piece + 1] = square;
+						}
+					}
+				} else {
+					// Every king move that led here is one more losing move for the weaker side
+					long from = Attacks.KING[squares[1]] & ~occupied & ~Attacks.KING[squares[0]];
+					int weakKing = squares[1];
+					while(from != 0) {
+						squares[1] = Long.numberOfTrailingZeros(from);
+						from &= from - 1;
+						int previous = index(WEAK, squares);
+						if(results[previous] == DRAW && counters[previous] > 0 && --counters[previous] == 0) {
+							results[previous] = LOSS;
+							plies[previous] = (byte) (ply + 1);
+							if(nextCount == next.length)
+								next = Arrays.copyOf(next, nextCount * 2);
+							next[nextCount++] = previous;
+						}
+					}
+					squares[1] = weakKing;
+				}
+			}
+			for(int i = 0; i < promotionCounts[ply + 1]; i++) {
+				int index = promotions[ply + 1][i];
+				if(results[index] == DRAW) {
+					results[index] = WIN;
+					plies[index] = (byte) (ply + 1);
+					if(nextCount == next.length)
+						next = Arrays.copyOf(next, nextCount * 2);
+					next[nextCount++] = index;
+				}
+			}
+			int[] swap = current;
+			current = next;
+			next = swap;
+			currentCount = nextCount;
+		}
+		counters = null;
+	}
+
+	/**
+	 * Finds the squares a piece of the stronger side could have come from, without capturing
+	 * @param piece 0 for the king, otherwise 1 + the index in <code>types</code>
+	 */
+	private long unmoves(int piece, int square, int[] squares, long occupied) {
+		if(piece == 0)
+			return Attacks.KING[square] & ~occupied & ~Attacks.KING[squares[1]];
+		switch(types[piece - 1]) {
+			case Piece.WHITE_PAWN: {
+				long from = 0;
+				if(square - 8 >= 8 && (occupied & 1L << (square - 8)) == 0) {
+					from |= 1L << (square - 8);
+					if(square >> 3 == 3 && (occupied & 1L << (square - 16)) == 0)
+						from |= 1L << (square - 16);
+				}
+				return from;
+			}
+			case Piece.WHITE_KNIGHT:
+				return Attacks.KNIGHT[square] & ~occupied;
+			case Piece.WHITE_BISHOP:
+				return Attacks.bishop(square, occupied) & ~occupied;
+			case Piece.WHITE_ROOK:
+				return Attacks.rook(square, occupied) & ~occupied;
+			default:
+				return Attacks.queen(square, occupied) & ~occupied;
+		}
+	}
+
+	/**
+	 * Collects the KPK positions won by promoting, by the ply of the win.
+	 * @return The latest ply with such a win, 0 if none
+	 */
+	private int findPromotions(Bitbase queens, Bitbase rooks, int[][] promotions, int[] promotionCounts) {
+		int[] squares = new int[3];
+		int last = 0;
+		for(int index = 0; index < size; index++) {
+			if(results[index] != DRAW || decode(index, squares) != STRONG || squares[2] >> 3 != 6)
+				continue;
+			int to = squares[2] + 8;
+			if(to == squares[0] || to == squares[1])
+				continue;
+			int best = Integer.MAX_VALUE;
+			for(Bitbase promoted : new Bitbase[] {queens, rooks}) {
+				int after = index(WEAK, squares[0], squares[1], to, 0, 1);
+				if(promoted.results[after] == LOSS)
+					best = Math.min(best, (promoted.plies[after] & 0xFF) + 1);
+			}
+			if(best < promotions.length) {
+				last = Math.max(last, best);
+				if(promotions[best] == null)
+					promotions[best] = new int[64];
+				if(promotionCounts[best] == promotions[best].length)
+					promotions[best] = Arrays.copyOf(promotions[best], promotionCounts[best] * 2);
+				promotions[best][promotionCounts[best]++] = index;
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * Writes the table to a file.
+	 */
+	private void write(Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size / 4 + size);
+		buffer.putInt(MAGIC);
+		buffer.putInt(size);
+		for(int index = 0; index < size; index += 4)
+			buffer.put((byte) (results[index] | results[index + 1] << 2 | results[index + 2] << 4
+					| results[index + 3] << 6));
+		buffer.put(plies);
+		buffer.flip();
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Builds one table, writes it and prints a summary.
+	 */
+	private static Bitbase build(int table, Path directory, Bitbase queens, Bitbase rooks) {
+		long start = System.nanoTime();
+		Bitbase bitbase = new Bitbase(table, null);
+		bitbase.generate(queens, rooks);
+		int[] counts = new int[4];
+		int longest = 0;
+		for(int index = 0; index < bitbase.size; index++) {
+			counts[bitbase.results[index]]++;
+			if(bitbase.results[index] == WIN || bitbase.results[index] == LOSS)
+				longest = Math.max(longest, bitbase.plies[index]);
+		}
+		try {
+			bitbase.write(directory.resolve(NAMES[table] + ".bb"));
+		} catch(IOException e) {
+			throw new RuntimeException(e);
+		}
+		System.out.println(String.format("%-5s %,11d wins %,11d draws %,11d losses, longest mate %3d plies, %6d ms",
+				NAMES[table], counts[WIN], counts[DRAW], counts[LOSS], longest, (System.nanoTime() - start) / 1000000));
+		return bitbase;
+	}
+
+	/**
+	 * Builds every table, using all cores.
+	 * @param args The directory to write to, <code>bitbases</code> by default
+	 * @throws IOException If the directory can't be made
+	 */
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args.length > 0 ? args[0] : DIRECTORY);
+		Files.createDirectories(directory);
+		long start = System.nanoTime();
+		CompletableFuture<Bitbase> queens = CompletableFuture.supplyAsync(() -> build(KQK, directory, null, null));
+		CompletableFuture<Bitbase> rooks = CompletableFuture.supplyAsync(() -> build(KRK, directory, null, null));
+		CompletableFuture<Bitbase> bishopKnight = CompletableFuture.supplyAsync(() -> build(KBNK, directory, null, null));
+		build(KPK, directory, queens.join(), rooks.join());
+		bishopKnight.join();
+		System.out.println(String.format("Done in %d ms", (System.nanoTime() - start) / 1000000));
+	}
+}
@@ -7,7 +7,7 @@ import java.util.*;
  * <code>BoardPanel</code> class. The chessboard is stored and displayed inside this.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.26
+ * @version 0.9.35
  * @since 4 APR 2020
  */
 class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
@@ -43,6 +43,9 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 	
 	// FIELDS //
 	Piece[][] grid;
+	// The rules state; grid is rewritten from this after every change.
+	// It also keeps the Zobrist key of every position in doneMoveStack, for repetition checks.
+	Position position;
 	// JPanel dimensions. Represents both because it's a square.
 	int length;
 	int squareSize;
@@ -50,7 +53,7 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 	int outsideGrid;
 	int selectedRank;
 	int selectedFile;
-	int gameStatus; // 0 -> playing, 1 -> white, 2 -> black, -1 -> stalemate
+	int gameStatus; // 0 -> playing, 1 -> white, 2 -> black, negative -> draw (see MoveRules)
 	boolean whiteToMove;
 	HashSet<BoardStateListener> listenerSet;
 	
@@ -59,6 +62,11 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 
 	ArrayDeque<State> doneMoveStack;
 	ArrayDeque<State> undoneMoveStack;
+	// Reused by every legal move lookup, so painting and clicking don't allocate move maps
+	int[] moveBuffer;
+	// Which colors the computer plays, indexed by Piece.WHITE / Piece.BLACK
+	boolean[] computerPlays;
+	ComputerPlayer computerPlayer;
 	
 	int mouseX;
 	int mouseY;
@@ -83,6 +91,10 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 		set = 0;
 		
 		grid = new Piece[10][10];
+		position = new Position();
+		computerPlays = new boolean[3];
+		computerPlayer = new ComputerPlayer(this);
+		listenerSet = new HashSet<>();
 		
 		addLabels();
 		setBoard();
@@ -99,8 +111,7 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
         
         doneMoveStack = new ArrayDeque<>();
         undoneMoveStack = new ArrayDeque<>();
-
-        listenerSet = new HashSet<>();
+        moveBuffer = new int[Move.MAX_MOVES];
 	}
 	
 	// METHODS //
@@ -133,31 +144,8 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 	 * @param endRank The new rank of the piece.
 	 */
 	void doMove(int startRank, int startFile, int endRank, int endFile, int moveType) {
-		Piece[][] gridCopy = new Piece[10][10];
-		for(int rank = 0; rank < 10; rank++) {
-			for(int file = 0; file < 10; file++) {
-				gridCopy[rank][file] = new Piece(grid[rank][file]);
-			}
-		}
-		doneMoveStack.push(new State(gridCopy));
-		undoneMoveStack.clear();
-		grid[endRank][endFile] = grid[startRank][startFile];
-		grid[startRank][startFile] = new Piece(Piece.EMPTY);
-		if(moveType == MoveRules.EN_PASSANT) { // EN PASSANT
-			if(grid[endRank][endFile].getTeamColor() == Piece.WHITE) {   // WHITE EN PASSANT
-				grid[endRank+1][endFile] = new Piece(Piece.EMPTY);
-			} else {                                                // BLACK EN PASSANT
-				grid[endRank-1][endFile] = new Piece(Piece.EMPTY);
-			}
-		} else if(moveType == MoveRules.CASTLE) { // CASTLING
-			if(endFile > startFile) { // KINGSIDE
-				grid[endRank][6] = grid[endRank][8];
-				grid[endRank][8] = new Piece(Piece.EMPTY);
-			} else { // QUEENSIDE
-				grid[endRank][4] = grid[endRank][1];
-				grid[endRank][1] = new Piece(Piece.EMPTY);
-			}
-		} else if(moveType == MoveRules.PROMOTION) { // PROMOTION
+		int promotion = Piece.EMPTY;
+		if(moveType == MoveRules.PROMOTION) { // PROMOTION
 			int piece = JOptionPane.showOptionDialog(
 				this,                               // Parent component
 				"Select a piece to promote to",     // Message
@@ -170,64 +158,86 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 			);
 			switch(piece) {
 				case 0: {   // BISHOP
-					if(whiteToMove)
-						grid[endRank][endFile] = new Piece(Piece.WHITE_BISHOP);
-					else 
-						grid[endRank][endFile] = new Piece(Piece.BLACK_BISHOP);
+					promotion = whiteToMove ? Piece.WHITE_BISHOP : Piece.BLACK_BISHOP;
 					break;
 				} case 1: { // KNIGHT
-					if(whiteToMove)
-						grid[endRank][endFile] = new Piece(Piece.WHITE_KNIGHT);
-					else
-						grid[endRank][endFile] = new Piece(Piece.BLACK_KNIGHT);
+					promotion = whiteToMove ? Piece.WHITE_KNIGHT : Piece.BLACK_KNIGHT;
 					break;
 				} case 2: { // ROOK
-					if(whiteToMove)
-						grid[endRank][endFile] = new Piece(Piece.WHITE_ROOK);
-					else
-						grid[endRank][endFile] = new Piece(Piece.BLACK_ROOK);
+					promotion = whiteToMove ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
 					break;
-				} case 3: { // QUEEN
-					if(whiteToMove)
-						grid[endRank][endFile] = new Piece(Piece.WHITE_QUEEN);
-					else
-						grid[endRank][endFile] = new Piece(Piece.BLACK_QUEEN);
+				} default: { // QUEEN
+					promotion = whiteToMove ? Piece.WHITE_QUEEN : Piece.BLACK_QUEEN;
 					break;
 				}
 			}
 		}
-		grid[endRank][endFile].setHasMoved();
-		whiteToMove = !whiteToMove;
-		boolean isCheckmate = MoveRules.isCheckmate(grid, doneMoveStack, whiteToMove);
-		if(whiteToMove && isCheckmate) // white has been checkmated
-			gameStatus = Piece.BLACK;
-		else if(isCheckmate)
-			gameStatus = Piece.WHITE;
-
-		boolean isStalemate = MoveRules.isStalemate(grid, doneMoveStack, whiteToMove);
-		if(isStalemate) // white has been stalemated
-			gameStatus = MoveRules.STALEMATE;
+		doMove(Move.encode(Position.toSquare(startRank, startFile), Position.toSquare(endRank, endFile),
+				moveType, promotion));
+	}
+	
+	/**
+	 * Plays an encoded move, without asking anything. Used by the computer player.
+	 * If the computer plays the side now to move, it starts thinking.
+	 *
+	 * @param move The move, legal in the current position.
+	 */
+	void doMove(int move) {
+		doneMoveStack.push(new State(move, position.makeMove(move)));
+		undoneMoveStack.clear();
+		position.toGrid(grid);
+		whiteToMove = position.whiteToMove;
+		// Games between two computers stop once the bitbases call them drawn; people may play on
+		if(computerPlays[Piece.WHITE] && computerPlays[Piece.BLACK])
+			gameStatus = MoveRules.adjudicate(position);
+		else
+			gameStatus = MoveRules.evaluateGameStatus(position);
+		notifyPositionChanged();
+		if(gameStatus == MoveRules.PLAYING && computerPlays[position.sideToMove()])
+			computerPlayer.startThinking();
+	}
+	
+	/**
+	 * Hands a color over to the computer or back to the user.
+	 * If the computer now plays the side to move, it starts thinking.
+	 *
+	 * @param color <code>Piece.WHITE</code> or <code>Piece.BLACK</code>.
+	 * @param plays Whether the computer should play that color.
+	 */
+	void setComputerPlays(int color, boolean plays) {
+		computerPlays[color] = plays;
+		if(color != position.sideToMove())
+			return;
+		if(plays && gameStatus == MoveRules.PLAYING)
+			computerPlayer.startThinking();
+		else if(!plays)
+			computerPlayer.cancel();
 	}
 	
 	/**
 	 * Undoes a move.
 	 */
 	void undoMove() {
-		State lastBoardState = doneMoveStack.pop();
-		undoneMoveStack.push(new State(grid));
-		grid = lastBoardState.getBoard();
-		whiteToMove = !whiteToMove;
+		computerPlayer.cancel();
+		State lastState = doneMoveStack.pop();
+		position.unmakeMove(lastState.getMove(), lastState.getUndo());
+		undoneMoveStack.push(lastState);
+		position.toGrid(grid);
+		whiteToMove = position.whiteToMove;
+		notifyPositionChanged();
 	}
 	
 	/**
 	 * Redoes a move.
 	 */
 	void redoMove() {
-		State lastBoardState = undoneMoveStack.pop();
-		doneMoveStack.push(new State(grid));
-		grid = lastBoardState.getBoard();
-		whiteToMove = !whiteToMove;
-
+		computerPlayer.cancel();
+		State lastState = undoneMoveStack.pop();
+		position.makeMove(lastState.getMove());
+		doneMoveStack.push(lastState);
+		position.toGrid(grid);
+		whiteToMove = position.whiteToMove;
+		notifyPositionChanged();
 	}
 	
 	/**
@@ -315,23 +325,50 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
         }
         
 		// POSS. MOVES
-		int[][] possibleMoves = MoveRules.getPossMoves(grid, selectedRank, selectedFile, doneMoveStack, whiteToMove);
 		graphics2d.setColor(POSS_MOVE_COLOR);
 		graphics2d.setStroke(new BasicStroke(2));
-		for(int moveRank = 1; moveRank <= 8; moveRank++)
-			for(int moveFile = 1; moveFile <= 8; moveFile++)
-				if(possibleMoves[moveRank][moveFile] != MoveRules.NONE) {
-					int cx = (int)(outsideGrid / 2. + squareSize * (moveFile + 0.5));
-					int cy = (int)(outsideGrid / 2. + squareSize * (moveRank + 0.5));
-					int d1 = squareSize / 2;
-					graphics2d.fillOval(cx - d1 / 2, cy - d1 / 2, d1, d1);
-					int d2 = squareSize * 5 / 8;
-					graphics2d.drawOval(cx - d2 / 2, cy - d2 / 2, d2, d2);
-				}
+		if(selectedRank != 0) {
+			int selectedSquare = Position.toSquare(selectedRank, selectedFile);
+			int moveCount = MoveRules.generateLegalMoves(position, moveBuffer);
+			for(int i = 0; i < moveCount; i++) {
+				if(Move.from(moveBuffer[i]) != selectedSquare)
+					continue;
+				int moveRank = Position.gridRank(Move.to(moveBuffer[i]));
+				int moveFile = Position.gridFile(Move.to(moveBuffer[i]));
+				int cx = (int)(outsideGrid / 2. + squareSize * (moveFile + 0.5));
+				int cy = (int)(outsideGrid / 2. + squareSize * (moveRank + 0.5));
+				int d1 = squareSize / 2;
+				graphics2d.fillOval(cx - d1 / 2, cy - d1 / 2, d1, d1);
+				int d2 = squareSize * 5 / 8;
+				graphics2d.drawOval(cx - d2 / 2, cy - d2 / 2, d2, d2);
+			}
+		}
 		if(gameStatus != MoveRules.PLAYING)
 			notifyListeners();
 	}
 	
+	/**
+	 * Looks up the type of a legal move of the side to move.
+	 *
+	 * @param startRank The original rank of the piece.
+	 * @param startFile The original file of the piece.
+	 * @param endRank The new rank of the piece.
+	 * @param endFile The new file of the piece.
+	 * @return The move type, <code>MoveRules.NONE</code> if the move isn't legal.
+	 */
+	int findMoveType(int startRank, int startFile, int endRank, int endFile) {
+		if(endRank < 1 || endRank > 8 || endFile < 1 || endFile > 8)
+			return MoveRules.NONE;
+		int from = Position.toSquare(startRank, startFile);
+		int to = Position.toSquare(endRank, endFile);
+		int moveCount = MoveRules.generateLegalMoves(position, moveBuffer);
+		for(int i = 0; i < moveCount; i++) {
+			if(Move.from(moveBuffer[i]) == from && Move.to(moveBuffer[i]) == to)
+				return Move.type(moveBuffer[i]);
+		}
+		return MoveRules.NONE;
+	}
+	
 	/**
 	 * Notifyes any associated <code>BoardStateListeners</code> of check-/stalemate.
 	 */
@@ -341,59 +378,84 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 		}
 	}
 	
+	/**
+	 * Notifies any associated <code>BoardStateListeners</code> that the position has changed.
+	 */
+	void notifyPositionChanged() {
+		for(BoardStateListener bSL : listenerSet) {
+			bSL.positionChanged();
+		}
+	}
+	
 	/**
 	 * Adds letter/number squares and sets all other pieces to <code>Piece.EMPTY</code>.
 	 */
 	private void addLabels() {
 		for(int rank = 0; rank <= 9; rank++) {
 			for(int file = 0; file <= 9; file++) {
-				grid[rank][file] = new Piece(Piece.EMPTY);
+				grid[rank][file] = Piece.of(Piece.EMPTY);
 				if((file == 0 || file == 9) && rank > 0 && rank < 9)
-					grid[rank][file] = new Piece(Piece.LABEL_ONE + rank - 1);
+					grid[rank][file] = Piece.of(Piece.LABEL_ONE + rank - 1);
 				else if((rank == 0 || rank == 9) && file > 0 && file < 9)
-					grid[rank][file] = new Piece(Piece.LABEL_A + file - 1);
+					grid[rank][file] = Piece.of(Piece.LABEL_A + file - 1);
 			}
 		}
 	}
 	
 	/**
-	 * Sets the board to the starting position.
+	 * Sets the board to the starting position. If the computer plays white, it starts thinking.
 	 */
 	void setBoard() {
+		computerPlayer.cancel();
         doneMoveStack = new ArrayDeque<>();
         undoneMoveStack = new ArrayDeque<>();
+		position.setStartPosition();
 		whiteToMove = true;
-
-		for(int rank = 1; rank <= 8; rank++) {
-			for(int file = 1; file <= 8; file++) {
-				grid[rank][file] = new Piece(Piece.EMPTY);
-			}
-		}
-		// PAWNS
-		for(int file = 1; file <= 8; file++) {
-			grid[2][file] = new Piece(Piece.BLACK_PAWN);
-			grid[7][file] = new Piece(Piece.WHITE_PAWN);
-		}
-		
-		// PIECES
-		for(int file = 1; file <= 8; file++) {
-			if(file == 1 || file == 8) {
-				grid[1][file] = new Piece(Piece.BLACK_ROOK);
-				grid[8][file] = new Piece(Piece.WHITE_ROOK);
-			} else if(file == 2 || file == 7) {
-				grid[1][file] = new Piece(Piece.BLACK_KNIGHT);
-				grid[8][file] = new Piece(Piece.WHITE_KNIGHT);
-			} else if(file == 3 || file == 6) {
-				grid[1][file] = new Piece(Piece.BLACK_BISHOP);
-				grid[8][file] = new Piece(Piece.WHITE_BISHOP);
-			} else if(file == 4) {
-				grid[1][file] = new Piece(Piece.BLACK_QUEEN);
-				grid[8][file] = new Piece(Piece.WHITE_QUEEN);
-			} else {
-				grid[1][file] = new Piece(Piece.BLACK_KING);
-				grid[8][file] = new Piece(Piece.WHITE_KING);
-			}
-		}
+		gameStatus = MoveRules.PLAYING;
+		position.toGrid(grid);
+		notifyPositionChanged();
+		if(computerPlays[Piece.WHITE])
+			computerPlayer.startThinking();
+	}
+	
+	/**
+	 * Sets the board to a position given as FEN, dropping the move history. If the computer plays the side to move,
+	 * it starts thinking.
+	 * @param fen The FEN string.
+	 * @throws IllegalArgumentException If the string isn't valid FEN; the board is then left as it was.
+	 */
+	void loadPosition(String fen) {
+		Position loaded = Position.fromFen(fen);
+		computerPlayer.cancel();
+		doneMoveStack = new ArrayDeque<>();
+		undoneMoveStack = new ArrayDeque<>();
+		position.copyFrom(loaded);
+		whiteToMove = position.whiteToMove;
+		selectedRank = 0;
+		selectedFile = 0;
+		gameStatus = MoveRules.evaluateGameStatus(position);
+		position.toGrid(grid);
+		notifyPositionChanged();
+		if(gameStatus == MoveRules.PLAYING && computerPlays[position.sideToMove()])
+			computerPlayer.startThinking();
+	}
+	
+	/**
+	 * Sets the board to a saved game, at the move it was saved at; moves taken back before saving can be redone. If
+	 * the computer plays the side to move, it starts thinking.
+	 * @param record The game.
+	 */
+	void loadGame(GameRecord record) {
+		computerPlayer.cancel();
+		record.replay(position, doneMoveStack, undoneMoveStack);
+		whiteToMove = position.whiteToMove;
+		selectedRank = 0;
+		selectedFile = 0;
+		gameStatus = MoveRules.evaluateGameStatus(position);
+		position.toGrid(grid);
+		notifyPositionChanged();
+		if(gameStatus == MoveRules.PLAYING && computerPlays[position.sideToMove()])
+			computerPlayer.startThinking();
 	}
 	
 	/**
@@ -410,6 +472,8 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 	 */
 	@Override
 	public void mousePressed(MouseEvent e) {
+		if(computerPlays[position.sideToMove()])
+			return;
 		mousePressed = true;
 		int mouseRank = (e.getY() - outsideGrid / 2) / squareSize;
 		int mouseFile = (e.getX() - outsideGrid / 2) / squareSize;
@@ -428,8 +492,7 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 					selectedRank = mouseRank;
 					selectedFile = mouseFile;
 				} else { // EMPTY / ENEMY PIECE CLICKED
-					int[][] possMoves = MoveRules.getPossMoves(grid, selectedRank, selectedFile, doneMoveStack, whiteToMove);
-					int moveType = possMoves[mouseRank][mouseFile];
+					int moveType = findMoveType(selectedRank, selectedFile, mouseRank, mouseFile);
 					if(moveType != 0)          // PERFORM VALID MOVE
 						doMove(selectedRank, selectedFile, mouseRank, mouseFile, moveType);
 					selectedRank = selectedFile = 0;
@@ -458,8 +521,7 @@ class BoardPanel extends JPanel implements MouseListener, MouseMotionListener {
 			return;
 		}
 		
-		int[][] possMoves = MoveRules.getPossMoves(grid, selectedRank, selectedFile, doneMoveStack, whiteToMove);
-		int moveType = possMoves[mouseRank][mouseFile];
+		int moveType = findMoveType(selectedRank, selectedFile, mouseRank, mouseFile);
 		if(moveType != 0)          // PERFORM VALID MOVE
 			doMove(selectedRank, selectedFile, mouseRank, mouseFile, moveType);
 		
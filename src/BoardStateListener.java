@@ -1,8 +1,8 @@
 /**
- * <code>BoardStateListener</code> interface. Used to detect check-/stalemate.
+ * <code>BoardStateListener</code> interface. Used to detect check-/stalemate and changes of position.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.2
+ * @version 0.9.3
  * @since 25 MAY 2020
  */
 interface BoardStateListener {
@@ -10,4 +10,9 @@ interface BoardStateListener {
      * Checks for game over and updates internal state.
      */
     void gameIsOver();
+
+    /**
+     * Called after a move is made, undone or redone, and when the board is reset.
+     */
+    void positionChanged();
 }
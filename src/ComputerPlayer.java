@@ -0,0 +1,172 @@
+import javax.swing.*;
+
+/**
+ * <code>ComputerPlayer</code> class. Plays moves for <code>BoardPanel</code>: each search runs on its own thread so the
+ * board stays responsive, and the chosen move is handed back on the event thread.
+ * A search that is cancelled, or whose position has changed by the time it finishes, is thrown away. Cancelling waits
+ * for its thread to end, so a dropped ponder search never keeps running alongside the next one.
+ * Positions in the opening book, if there is one, are answered from the book without searching.
+ * While the user thinks, the computer ponders: it searches the position after the reply it expects, at low priority
+ * and leaving a core free, so dragging pieces stays smooth. If the user plays that reply the search carries on with a
+ * time limit; otherwise it is dropped and a fresh one starts.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.7
+ * @since 18 OCT 2026
+ */
+class ComputerPlayer {
+	// CONSTANTS //
+	static final long DEFAULT_MOVE_TIME = 1000; // milliseconds
+
+	// FIELDS //
+	BoardPanel boardPanel;
+	long moveTime;
+	int threadCount;
+	boolean ponder;
+	TranspositionTable table; // kept from move to move, since the next search mostly revisits the same positions
+	OpeningBook book;   // null if there is none
+	Search search;      // the running search, null if none
+	Thread thread;      // the thread running it
+	int searchId;       // bumped on every start and cancel; only touched on the event thread
+	// While pondering: the key of the position searched, which the user's reply has to reach, 0 if not pondering
+	long ponderKey;
+	boolean ponderDone; // whether the ponder search ended before the user replied
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates a computer player for a board.
+	 * @param boardPanel The board to play on.
+	 */
+	ComputerPlayer(BoardPanel boardPanel) {
+		this.boardPanel = boardPanel;
+		this.moveTime = DEFAULT_MOVE_TIME;
+		this.threadCount = Runtime.getRuntime().availableProcessors();
+		this.ponder = true;
+		this.table = new TranspositionTable();
+		this.book = OpeningBook.openDefault();
+	}
+
+	// METHODS //
+
+	/**
+	 * Starts searching the board's current position, cancelling any search already running. If the computer was
+	 * pondering this very position, that search is kept instead and given the usual time.
+	 * Must be called on the event thread.
+	 */
+	void startThinking() {
+		if(ponderKey != 0 && ponderKey == boardPanel.position.key) {
+			ponderKey = 0;
+			if(ponderDone) {
+				// Played later rather than now, so doMove isn't re-entered from inside doMove
+				final int id = searchId;
+				SwingUtilities.invokeLater(() -> finish(id, search));
+			} else {
+				search.ponderHit(moveTime);
+				// The main thread first, so helpers not yet created inherit its priority
+				thread.setPriority(Thread.NORM_PRIORITY);
+				search.setHelperPriority(Thread.NORM_PRIORITY);
+			}
+			return;
+		}
+		cancel();
+		final int id = searchId;
+		final int bookMove = book == null ? Move.NONE : book.probe(boardPanel.position);
+		if(bookMove != Move.NONE) {
+			SwingUtilities.invokeLater(() -> {
+				if(id == searchId) {
+					boardPanel.doMove(bookMove);
+					boardPanel.repaint();
+				}
+			});
+			return;
+		}
+		start(new Position(boardPanel.position), moveTime, threadCount, Thread.NORM_PRIORITY);
+	}
+
+	/**
+	 * Starts pondering on the position after the user's expected reply, if pondering is on and the last search
+	 * expected one. Must be called on the event thread, with the user to move.
+	 * @param pv The principal variation of the search that chose the computer's last move
+	 */
+	void startPondering(int[] pv) {
+		if(!ponder || pv.length < 2 || !MoveRules.isLegalMove(boardPanel.position, pv[1]))
+			return;
+		cancel();
+		Position root = new Position(boardPanel.position);
+		root.makeMove(pv[1]);
+		ponderKey = root.key;
+		ponderDone = false;
+		// Leave the event thread a core of its own
+		start(root, 0, Math.max(1, threadCount - 1), Thread.MIN_PRIORITY);
+	}
+
+	/**
+	 * Starts a search thread. The helpers it starts take on its priority.
+	 * @param root The position to search, owned by the search from now on
+	 * @param timeMillis How long to search, 0 for no limit
+	 * @param threads How many threads to search with
+	 * @param priority The search thread's priority
+	 */
+	private void start(final Position root, final long timeMillis, int threads, int priority) {
+		final int id = searchId;
+		final Search search = new Search(table);
+		search.setThreads(threads);
+		this.search = search;
+		thread = new Thread(() -> {
+			search.think(root, Search.MAX_DEPTH, timeMillis, 0);
+			SwingUtilities.invokeLater(() -> finish(id, search));
+		}, "Computer player");
+		thread.setDaemon(true);
+		thread.setPriority(priority);
+		thread.start();
+	}
+
+	/**
+	 * Plays the result of a finished search, unless it has been cancelled since, or was pondering and the user
+	 * hasn't replied yet. Must be called on the event thread.
+	 */
+	private void finish(int id, Search search) {
+		if(id != searchId)
+			return;
+		if(ponderKey != 0) {
+			ponderDone = true;
+			return;
+		}
+		this.search = null;
+		thread = null;
+		if(search.bestMove != Move.NONE) {
+			boardPanel.doMove(search.bestMove);
+			boardPanel.repaint();
+			if(boardPanel.gameStatus == MoveRules.PLAYING && !boardPanel.computerPlays[boardPanel.position.sideToMove()])
+				startPondering(search.getPrincipalVariation());
+		}
+	}
+
+	/**
+	 * Stops the running search, if any, waits for its thread to end, and drops its result. Must be called on the event
+	 * thread.
+	 */
+	void cancel() {
+		searchId++;
+		ponderKey = 0;
+		if(search != null) {
+			search.stop();
+			try {
+				thread.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			search = null;
+			thread = null;
+		}
+	}
+
+	/**
+	 * Checks whether a search is running for a move to play now; pondering doesn't count.
+	 * @return <code>true</code> if the computer is thinking.
+	 */
+	boolean isThinking() {
+		return search != null && ponderKey == 0;
+	}
+}
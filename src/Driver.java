@@ -1,19 +1,29 @@
+import java.io.IOException;
+
 /**
  * <code>Driver</code> class. The game is run through here.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.5
+ * @version 0.9.6
  * @since 4 APR 2020
  */
 public class Driver {
 	// MAIN() //
 	
 	/**
-	 * Main() definition. Game launches through this.
+	 * Main() definition. Game launches through this, or with <code>--uci</code> the engine runs headless over
+	 * standard input and output, without loading Swing or any images.
 	 *
 	 * @param args <code>String</code> arguments passed through command line.
+	 * @throws IOException If standard input can't be read in UCI mode.
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		for(String arg : args) {
+			if(arg.equals("--uci")) {
+				new Uci(System.in, System.out).run();
+				return;
+			}
+		}
 		Frame frame = new Frame();
 	}
 }
@@ -0,0 +1,166 @@
+/**
+ * <code>Evaluation</code> class. This is not instantiated, only providing the static score of a position for the search.
+ * Scores are in centipawns, from the point of view of the side to move.
+ * Each piece is worth its material plus a piece-square bonus, with separate middlegame and endgame values. The final
+ * score blends the two by game phase, which falls as pieces come off.
+ * <code>Position</code> keeps the sums updated as pieces are put and removed, so evaluating is O(1); the full
+ * recount in <code>evaluateFromScratch</code> only serves as a cross-check when assertions are on.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+abstract class Evaluation {
+	// CONSTANTS //
+	// Indexed by the Piece constants; kings are never traded so they count for nothing.
+	// Used where only a rough value is needed, such as ordering captures.
+	static final int[] PIECE_VALUES = {0, 100, 330, 320, 500, 900, 0, 100, 330, 320, 500, 900, 0};
+	// Material by white piece type, for the middlegame and endgame
+	static final int[] MIDDLEGAME_VALUES = {0, 82, 365, 337, 477, 1025, 0};
+	static final int[] ENDGAME_VALUES = {0, 94, 297, 281, 512, 936, 0};
+	// How much each piece counts towards the middlegame, indexed by the Piece constants
+	static final int[] PHASE_WEIGHTS = {0, 0, 1, 1, 2, 4, 0, 0, 1, 1, 2, 4, 0};
+	static final int TOTAL_PHASE = 24;
+
+	// Piece-square bonuses for white, written as the board is seen from white's side: a8 first, h1 last.
+	// Black uses them mirrored.
+	private static final int[] PAWN_MIDDLEGAME = {
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 10,  10,  20,  30,  30,  20,  10,  10,
+			  5,   5,  10,  25,  25,  10,   5,   5,
+			  0,   0,   0,  20,  20,   0,   0,   0,
+			  5,  -5, -10,   0,   0, -10,  -5,   5,
+			  5,  10,  10, -20, -20,  10,  10,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0
+	};
+	private static final int[] PAWN_ENDGAME = {
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 80,  80,  80,  80,  80,  80,  80,  80,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 30,  30,  30,  30,  30,  30,  30,  30,
+			 15,  15,  15,  15,  15,  15,  15,  15,
+			  5,   5,   5,   5,   5,   5,   5,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  0,   0,   0,   0,   0,   0,   0,   0
+	};
+	private static final int[] KNIGHT = {
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20,   0,   0,   0,   0, -20, -40,
+			-30,   0,  10,  15,  15,  10,   0, -30,
+			-30,   5,  15,  20,  20,  15,   5, -30,
+			-30,   0,  15,  20,  20,  15,   0, -30,
+			-30,   5,  10,  15,  15,  10,   5, -30,
+			-40, -20,   0,   5,   5,   0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50
+	};
+	private static final int[] BISHOP = {
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,  10,  10,   5,   0, -10,
+			-10,   5,   5,  10,  10,   5,   5, -10,
+			-10,   0,  10,  10,  10,  10,   0, -10,
+			-10,  10,  10,  10,  10,  10,  10, -10,
+			-10,   5,   0,   0,   0,   0,   5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20
+	};
+	private static final int[] ROOK = {
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  5,  10,  10,  10,  10,  10,  10,   5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			  0,   0,   0,   5,   5,   0,   0,   0
+	};
+	private static final int[] QUEEN = {
+			-20, -10, -10,  -5,  -5, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,   5,   5,   5,   0, -10,
+			 -5,   0,   5,   5,   5,   5,   0,  -5,
+			  0,   0,   5,   5,   5,   5,   0,  -5,
+			-10,   5,   5,   5,   5,   5,   0, -10,
+			-10,   0,   5,   0,   0,   0,   0, -10,
+			-20, -10, -10,  -5,  -5, -10, -10, -20
+	};
+	private static final int[] KING_MIDDLEGAME = {
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			 20,  20,   0,   0,   0,   0,  20,  20,
+			 20,  30,  10,   0,   0,  10,  30,  20
+	};
+	private static final int[] KING_ENDGAME = {
+			-50, -40, -30, -20, -20, -30, -40, -50,
+			-30, -20, -10,   0,   0, -10, -20, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -30,   0,   0,   0,   0, -30, -30,
+			-50, -30, -30, -30, -30, -30, -30, -50
+	};
+
+	// Material plus piece-square bonus, white minus black: 1st index -> piece type, 2nd index -> square
+	static final int[][] MIDDLEGAME = new int[Piece.BLACK_KING + 1][64];
+	static final int[][] ENDGAME = new int[Piece.BLACK_KING + 1][64];
+
+	static {
+		int[][] middlegameTables = {null, PAWN_MIDDLEGAME, BISHOP, KNIGHT, ROOK, QUEEN, KING_MIDDLEGAME};
+		int[][] endgameTables = {null, PAWN_ENDGAME, BISHOP, KNIGHT, ROOK, QUEEN, KING_ENDGAME};
+		for(int type = Piece.WHITE_PAWN; type <= Piece.WHITE_KING; type++) {
+			for(int square = 0; square < 64; square++) {
+				// The tables start at a8, squares at a1: flip the rank for white, and black's view is already flipped
+				MIDDLEGAME[type][square] = MIDDLEGAME_VALUES[type] + middlegameTables[type][square ^ 56];
+				ENDGAME[type][square] = ENDGAME_VALUES[type] + endgameTables[type][square ^ 56];
+				MIDDLEGAME[type + 6][square] = -(MIDDLEGAME_VALUES[type] + middlegameTables[type][square]);
+				ENDGAME[type + 6][square] = -(ENDGAME_VALUES[type] + endgameTables[type][square]);
+			}
+		}
+	}
+
+	// METHODS //
+
+	/**
+	 * Scores a position from the sums <code>Position</code> keeps
+	 * @param position The position to score
+	 * @return The score for the side to move
+	 */
+	static int evaluate(Position position) {
+		int score = taper(position.middlegameScore, position.endgameScore, position.phase);
+		assert score == evaluateFromScratch(position) : "incremental evaluation is off in " + position.toFen();
+		return position.whiteToMove ? score : -score;
+	}
+
+	/**
+	 * Scores a position by adding up every piece again. Too slow for the search; used to check the incremental sums.
+	 * @param position The position to score
+	 * @return The score for white
+	 */
+	static int evaluateFromScratch(Position position) {
+		int middlegame = 0;
+		int endgame = 0;
+		int phase = 0;
+		for(int square = 0; square < 64; square++) {
+			int type = position.pieceAt(square);
+			if(type == Piece.EMPTY)
+				continue;
+			middlegame += MIDDLEGAME[type][square];
+			endgame += ENDGAME[type][square];
+			phase += PHASE_WEIGHTS[type];
+		}
+		return taper(middlegame, endgame, phase);
+	}
+
+	/**
+	 * Blends middlegame and endgame scores by phase.
+	 */
+	private static int taper(int middlegame, int endgame, int phase) {
+		phase = Math.min(phase, TOTAL_PHASE); // Promotions can push it past the starting total
+		return (middlegame * phase + endgame * (TOTAL_PHASE - phase)) / TOTAL_PHASE;
+	}
+}
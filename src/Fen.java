@@ -0,0 +1,246 @@
+/**
+ * <code>Fen</code> class. This is not instantiated, only reading and writing positions in Forsyth-Edwards Notation.
+ * The parser walks the text once, character by character, straight into an existing <code>Position</code>, and
+ * allocates nothing unless the text is bad, so batch jobs can load millions of positions a second into one reused
+ * position. The writer appends to a caller's <code>StringBuilder</code> for the same reason.
+ * Castling rights and the en passant square go straight into the position's rules state, which is all
+ * <code>MoveRules</code> needs; no move history is required.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.3
+ * @since 18 OCT 2026
+ */
+abstract class Fen {
+	// CONSTANTS //
+	private static final String CASTLING_LETTERS = "KQkq";
+	static final int MAX_PIECES = 16;               // per side
+	// Half of what the 16-bit field in an undo record holds, leaving room for any game played on from the position
+	static final int MAX_HALFMOVE_CLOCK = 0x7FFF;
+
+	// METHODS //
+
+	/**
+	 * Loads a FEN string into a position, replacing everything in it. The move counters may be left out. Castling
+	 * rights whose king or rook isn't on its starting square are dropped, as is an en passant square no pawn can
+	 * capture onto. Positions that can't come up in a game are refused: each side needs exactly one king and at most
+	 * 16 pieces, pawns can't stand on the first or last rank, the side not to move can't be in check, and an en
+	 * passant square needs the pawn that just passed it. The halfmove clock may be at most
+	 * <code>MAX_HALFMOVE_CLOCK</code>.
+	 * @param fen The FEN string
+	 * @param position The position to load into
+	 * @throws IllegalArgumentException If the string isn't valid FEN; the position is then left cleared or partly
+	 * loaded
+	 */
+	static void parse(CharSequence fen, Position position) {
+		position.clear();
+		int length = fen.length();
+		int i = skipSpaces(fen, 0);
+
+		// Piece placement, from a8 to h1
+		int rank = 7;
+		int file = 0;
+		int whitePieces = 0;
+		int blackPieces = 0;
+		for(; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+			char c = fen.charAt(i);
+			if(c == '/') {
+				if(file != 8 || rank == 0)
+					throw error("Each rank needs 8 squares", fen);
+				rank--;
+				file = 0;
+			} else if(c >= '1' && c <= '8') {
+				file += c - '0';
+				if(file > 8)
+					throw error("Too many squares in a rank", fen);
+			} else {
+				int type = Position.PIECE_LETTERS.indexOf(c);
+				if(type < 1 || file > 7)
+					throw error("Bad piece placement", fen);
+				if((type == Piece.WHITE_PAWN || type == Piece.BLACK_PAWN) && (rank == 0 || rank == 7))
+					throw error("Pawns can't stand on the first or last rank", fen);
+				if((type < Piece.BLACK_PAWN ? ++whitePieces : ++blackPieces) > MAX_PIECES)
+					throw error("A side can't have more than " + MAX_PIECES + " pieces", fen);
+				position.putPiece(rank * 8 + file, type);
+				file++;
+			}
+		}
+		if(rank != 0 || file != 8)
+			throw error("The board needs 8 ranks of 8 squares", fen);
+		if(Long.bitCount(position.pieces[Piece.WHITE_KING]) != 1 || Long.bitCount(position.pieces[Piece.BLACK_KING]) != 1)
+			throw error("Each side needs one king", fen);
+
+		// Side to move
+		i = skipSpaces(fen, i);
+		if(i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b'))
+			throw error("Side to move must be w or b", fen);
+		position.whiteToMove = fen.charAt(i++) == 'w';
+
+		// Castling rights
+		i = skipSpaces(fen, i);
+		if(i < length && fen.charAt(i) == '-')
+			i++;
+		else {
+			for(; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+				int right = CASTLING_LETTERS.indexOf(fen.charAt(i));
+				if(right < 0)
+					throw error("Bad castling rights", fen);
+				position.castlingRights |= 1 << right;
+			}
+		}
+		position.castlingRights &= possibleCastling(position);
+
+		// En passant square
+		i = skipSpaces(fen, i);
+		if(i >= length)
+			throw error("FEN needs at least 4 fields", fen);
+		if(fen.charAt(i) == '-')
+			i++;
+		else {
+			if(i + 1 >= length)
+				throw error("Bad en passant square", fen);
+			int epFile = fen.charAt(i) - 'a';
+			int epRank = fen.charAt(i + 1) - '1';
+			if(epFile < 0 || epFile > 7 || epRank != (position.whiteToMove ? 5 : 2))
+				throw error("Bad en passant square", fen);
+			// The pawn that just moved two squares must be in front of it, with the square it came from empty
+			int square = epRank * 8 + epFile;
+			int forward = position.whiteToMove ? -8 : 8;
+			if(position.board[square + forward] != (position.whiteToMove ? Piece.BLACK_PAWN : Piece.WHITE_PAWN)
+					|| position.board[square] != Piece.EMPTY || position.board[square - forward] != Piece.EMPTY)
+				throw error("No pawn could have just moved past the en passant square", fen);
+			position.enPassantSquare = square;
+			i += 2;
+		}
+
+		// Move counters, optional
+		i = skipSpaces(fen, i);
+		if(i < length) {
+			int start = i;
+			int halfmoves = 0;
+			for(; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+				halfmoves = halfmoves * 10 + fen.charAt(i) - '0';
+				if(halfmoves > MAX_HALFMOVE_CLOCK)
+					throw error("Halfmove clock over " + MAX_HALFMOVE_CLOCK, fen);
+			}
+			if(i == start)
+				throw error("Bad halfmove clock", fen);
+			position.halfmoveClock = halfmoves;
+			i = skipSpaces(fen, i);
+			if(i < length) {
+				start = i;
+				int fullmoves = 0;
+				for(; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+					int digit = fen.charAt(i) - '0';
+					if(fullmoves > (Integer.MAX_VALUE - digit) / 10)
+						throw error("Fullmove number too large", fen);
+					fullmoves = fullmoves * 10 + digit;
+				}
+				if(i == start)
+					throw error("Bad fullmove number", fen);
+				position.fullmoveNumber = Math.max(1, fullmoves);
+			}
+		}
+		if(MoveRules.isKingChecked(position, position.whiteToMove ? Piece.BLACK : Piece.WHITE))
+			throw error("The side not to move is in check", fen);
+		position.dropUselessEnPassant();
+		// putPiece has already hashed the pieces; add the rest of the state
+		position.key ^= Zobrist.CASTLING[position.castlingRights];
+		if(position.enPassantSquare != Position.NO_SQUARE)
+			position.key ^= Zobrist.EN_PASSANT_FILE[position.enPassantSquare & 7];
+		if(!position.whiteToMove)
+			position.key ^= Zobrist.BLACK_TO_MOVE;
+		assert position.key == Zobrist.computeKey(position) : "FEN key is off for " + fen;
+	}
+
+	/**
+	 * Writes a position as FEN.
+	 * @param position The position
+	 * @param fen Where to append the FEN string
+	 */
+	static void write(Position position, StringBuilder fen) {
+		int[] board = position.board;
+		for(int rank = 7; rank >= 0; rank--) {
+			int empty = 0;
+			for(int file = 0; file < 8; file++) {
+				int type = board[rank * 8 + file];
+				if(type == Piece.EMPTY) {
+					empty++;
+					continue;
+				}
+				if(empty > 0)
+					fen.append((char) ('0' + empty));
+				empty = 0;
+				fen.append(Position.PIECE_LETTERS.charAt(type));
+			}
+			if(empty > 0)
+				fen.append((char) ('0' + empty));
+			if(rank > 0)
+				fen.append('/');
+		}
+		fen.append(position.whiteToMove ? " w " : " b ");
+		if(position.castlingRights == 0)
+			fen.append('-');
+		for(int right = 0; right < 4; right++) {
+			if((position.castlingRights & 1 << right) != 0)
+				fen.append(CASTLING_LETTERS.charAt(right));
+		}
+		fen.append(' ');
+		if(position.enPassantSquare == Position.NO_SQUARE)
+			fen.append('-');
+		else {
+			fen.append((char) ('a' + (position.enPassantSquare & 7)));
+			fen.append((char) ('1' + (position.enPassantSquare >>> 3)));
+		}
+		fen.append(' ').append(position.halfmoveClock).append(' ').append(position.fullmoveNumber);
+	}
+
+	/**
+	 * Writes a position as FEN.
+	 * @param position The position
+	 * @return The FEN string
+	 */
+	static String toString(Position position) {
+		StringBuilder fen = new StringBuilder(90);
+		write(position, fen);
+		return fen.toString();
+	}
+
+	/**
+	 * Finds which castling rights the placement allows: the king and that rook must still be on their starting
+	 * squares.
+	 */
+	private static int possibleCastling(Position position) {
+		int[] board = position.board;
+		int rights = 0;
+		if(board[4] == Piece.WHITE_KING) {
+			if(board[7] == Piece.WHITE_ROOK)
+				rights |= Position.WHITE_KINGSIDE;
+			if(board[0] == Piece.WHITE_ROOK)
+				rights |= Position.WHITE_QUEENSIDE;
+		}
+		if(board[60] == Piece.BLACK_KING) {
+			if(board[63] == Piece.BLACK_ROOK)
+				rights |= Position.BLACK_KINGSIDE;
+			if(board[56] == Piece.BLACK_ROOK)
+				rights |= Position.BLACK_QUEENSIDE;
+		}
+		return rights;
+	}
+
+	/**
+	 * Skips spaces.
+	 * @return The index of the next character that isn't a space
+	 */
+	private static int skipSpaces(CharSequence fen, int i) {
+		while(i < fen.length() && Character.isWhitespace(fen.charAt(i)))
+			i++;
+		return i;
+	}
+
+	/**
+	 * Builds the exception for bad FEN. Only called on the error path, where allocating is fine.
+	 */
+	private static IllegalArgumentException error(String problem, CharSequence fen) {
+		return new IllegalArgumentException(problem + " in FEN: " + fen);
+	}
+}
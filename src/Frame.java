@@ -6,7 +6,7 @@ import java.awt.event.*;
  * <code>Frame</code> class. This represents the game.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.13
+ * @version 0.9.14
  * @since 4 APR 2020
  */
 class Frame extends JFrame implements ComponentListener/*, MouseListener*/ {
@@ -59,12 +59,12 @@ class Frame extends JFrame implements ComponentListener/*, MouseListener*/ {
 		infoPanel.setBounds(0, 0, 150, 500);
 		this.add(infoPanel);
 		
-		blackPanel = new PlayerPanel(false);
+		blackPanel = new PlayerPanel(false, boardPanel);
 		blackPanel.setBackground(Color.BLACK);
 		blackPanel.setBounds(650, 0, 150, 250);
 		this.add(blackPanel);
 		
-		whitePanel = new PlayerPanel(true);
+		whitePanel = new PlayerPanel(true, boardPanel);
 		whitePanel.setBackground(Color.WHITE);
 		whitePanel.setBounds(650, 250, 150, 250);
 		this.add(whitePanel);
@@ -0,0 +1,279 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <code>GameRecord</code> class. A game in a compact binary form for saving to disk: a small header with the start
+ * position as FEN, the result and the tags, then one byte per ply.
+ * Each move is stored as its index among the legal moves of the position it was played in, sorted by their packed
+ * value so the index doesn't depend on the order <code>MoveRules</code> generates them in. No position has more than
+ * 218 legal moves, so a byte is always enough, and a move that isn't legal can't be stored at all.
+ * The whole line is kept, moves taken back included, along with how far into it the board was.
+ *
+ * File layout, big-endian:
+ * <pre>
+ * int    MAGIC
+ * int    length of everything below
+ * short  FEN length, then the FEN in ASCII
+ * byte   result, an index into RESULTS
+ * short  tag count, then for each tag its name and value, each as a short length and UTF-8 bytes
+ * int    ply count
+ * int    current ply, how many of the plies are on the board
+ * byte[] the moves, one per ply
+ * </pre>
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+class GameRecord {
+	// CONSTANTS //
+	static final int MAGIC = 0x4A470001;        // "JG", version 1
+	static final int MAX_LENGTH = 1 << 24;      // a sanity limit when reading
+	static final String[] RESULTS = {PgnGame.UNKNOWN_RESULT, "1-0", "0-1", "1/2-1/2"};
+	static final String EXTENSION = "jcg";
+
+	// FIELDS //
+	String startFen;
+	String result;              // one of RESULTS
+	Map<String, String> tags;   // in order
+	int[] moves;
+	int moveCount;
+	int currentPly;             // moves before this were on the board, the rest had been taken back
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates a record with no moves.
+	 * @param startFen The position the game starts from
+	 */
+	GameRecord(String startFen) {
+		this.startFen = startFen;
+		result = PgnGame.UNKNOWN_RESULT;
+		tags = new LinkedHashMap<>();
+		moves = new int[0];
+	}
+
+	// METHODS //
+
+	/**
+	 * Records the game on a board, including moves that were taken back.
+	 * @param current The board's position
+	 * @param doneMoveStack The moves played, most recent first
+	 * @param undoneMoveStack The moves taken back, the next to redo first
+	 * @param white The white player's name
+	 * @param black The black player's name
+	 * @return The record
+	 */
+	static GameRecord of(Position current, ArrayDeque<State> doneMoveStack, ArrayDeque<State> undoneMoveStack,
+			String white, String black) {
+		Position position = new Position(current);
+		int[] moves = new int[doneMoveStack.size() + undoneMoveStack.size()];
+		int index = doneMoveStack.size();
+		for(State state : doneMoveStack) {
+			moves[--index] = state.getMove();
+			position.unmakeMove(state.getMove(), state.getUndo());
+		}
+		GameRecord record = new GameRecord(position.toFen());
+		index = doneMoveStack.size();
+		for(State state : undoneMoveStack)
+			moves[index++] = state.getMove();
+		record.moves = moves;
+		record.moveCount = moves.length;
+		record.currentPly = doneMoveStack.size();
+
+		// The result is that of the whole line
+		position.copyFrom(current);
+		for(State state : undoneMoveStack)
+			position.makeMove(state.getMove());
+		record.result = PgnWriter.result(MoveRules.evaluateGameStatus(position));
+		record.tags = PgnWriter.gameTags(white, black, record.result);
+		return record;
+	}
+
+	/**
+	 * Writes the record to a channel.
+	 * @param channel Where to write
+	 * @throws IOException If writing fails
+	 * @throws IllegalStateException If a move isn't legal where it is played, or there are over 64K tags or a tag is
+	 * over 64K
+	 */
+	void write(WritableByteChannel channel) throws IOException {
+		byte[] fen = startFen.getBytes(StandardCharsets.US_ASCII);
+		if(tags.size() > 0xFFFF)
+			throw new IllegalStateException("Too many tags to store");
+		byte[][] tagBytes = new byte[tags.size() * 2][];
+		int length = 2 + fen.length + 1 + 2 + 4 + 4 + moveCount;
+		int index = 0;
+		for(Map.Entry<String, String> tag : tags.entrySet()) {
+			tagBytes[index++] = tag.getKey().getBytes(StandardCharsets.UTF_8);
+			tagBytes[index++] = tag.getValue().getBytes(StandardCharsets.UTF_8);
+		}
+		for(byte[] bytes : tagBytes) {
+			if(bytes.length > 0xFFFF)
+				throw new IllegalStateException("Tag too long to store");
+			length += 2 + bytes.length;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(8 + length);
+		buffer.putInt(MAGIC).putInt(length);
+		buffer.putShort((short) fen.length).put(fen);
+		buffer.put((byte) Math.max(0, Arrays.asList(RESULTS).indexOf(result)));
+		buffer.putShort((short) tags.size());
+		for(byte[] bytes : tagBytes)
+			buffer.putShort((short) bytes.length).put(bytes);
+		buffer.putInt(moveCount).putInt(currentPly);
+
+		Position position = Position.fromFen(startFen);
+		int[] legalMoves = new int[Move.MAX_MOVES];
+		for(int i = 0; i < moveCount; i++) {
+			int count = sortedLegalMoves(position, legalMoves);
+			int move = Arrays.binarySearch(legalMoves, 0, count, moves[i]);
+			if(move < 0)
+				throw new IllegalStateException("Illegal move at ply " + (i + 1));
+			buffer.put((byte) move);
+			position.makeMove(moves[i]);
+		}
+
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	/**
+	 * Reads a record from a channel.
+	 * @param channel Where to read
+	 * @return The record
+	 * @throws IOException If reading fails, or what is read isn't a valid record
+	 */
+	static GameRecord read(ReadableByteChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(8);
+		readFully(channel, header);
+		if(header.getInt() != MAGIC)
+			throw new IOException("Not a game record");
+		int length = header.getInt();
+		if(length < 0 || length > MAX_LENGTH)
+			throw new IOException("Corrupt game record");
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		readFully(channel, buffer);
+
+		try {
+			GameRecord record = new GameRecord(readString(buffer, StandardCharsets.US_ASCII));
+			int result = buffer.get();
+			if(result < 0 || result >= RESULTS.length)
+				throw new IOException("Corrupt game record");
+			record.result = RESULTS[result];
+			for(int tagCount = buffer.getShort() & 0xFFFF; tagCount > 0; tagCount--) {
+				String name = readString(buffer, StandardCharsets.UTF_8);
+				record.tags.put(name, readString(buffer, StandardCharsets.UTF_8));
+			}
+			record.moveCount = buffer.getInt();
+			record.currentPly = buffer.getInt();
+			if(record.moveCount != buffer.remaining() || record.currentPly < 0 || record.currentPly > record.moveCount)
+				throw new IOException("Corrupt game record");
+
+			// Replay, turning each index back into a move
+			Position position = Position.fromFen(record.startFen);
+			int[] legalMoves = new int[Move.MAX_MOVES];
+			record.moves = new int[record.moveCount];
+			for(int i = 0; i < record.moveCount; i++) {
+				int count = sortedLegalMoves(position, legalMoves);
+				int index = buffer.get() & 0xFF;
+				if(index >= count)
+					throw new IOException("Corrupt game record: illegal move at ply " + (i + 1));
+				record.moves[i] = legalMoves[index];
+				position.makeMove(legalMoves[index]);
+			}
+			return record;
+		} catch(RuntimeException e) {
+			// Anything the bytes make the FEN parser or the buffer throw means the record is bad, not the program
+			throw new IOException("Corrupt game record", e);
+		}
+	}
+
+	/**
+	 * Writes the record to a file, replacing it.
+	 * @param file The file
+	 * @throws IOException If writing fails
+	 */
+	void save(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(channel);
+		}
+	}
+
+	/**
+	 * Reads a record from a file.
+	 * @param file The file
+	 * @return The record
+	 * @throws IOException If reading fails, or the file isn't a valid record
+	 */
+	static GameRecord load(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return read(channel);
+		}
+	}
+
+	/**
+	 * Plays the record onto a position and move stacks, as <code>BoardPanel</code> keeps them: the moves up to
+	 * <code>currentPly</code> on <code>doneMoveStack</code>, the rest on <code>undoneMoveStack</code> ready to redo.
+	 * @param position Set to the position at <code>currentPly</code>
+	 * @param doneMoveStack Cleared and filled, most recent first
+	 * @param undoneMoveStack Cleared and filled, next to redo first
+	 */
+	void replay(Position position, ArrayDeque<State> doneMoveStack, ArrayDeque<State> undoneMoveStack) {
+		Fen.parse(startFen, position);
+		doneMoveStack.clear();
+		undoneMoveStack.clear();
+		for(int i = 0; i < moveCount; i++)
+			doneMoveStack.push(new State(moves[i], position.makeMove(moves[i])));
+		for(int i = moveCount; i > currentPly; i--) {
+			State state = doneMoveStack.pop();
+			position.unmakeMove(state.getMove(), state.getUndo());
+			undoneMoveStack.push(state);
+		}
+	}
+
+	/**
+	 * Generates the legal moves, sorted by packed value.
+	 * @return How many there are
+	 */
+	private static int sortedLegalMoves(Position position, int[] moves) {
+		int count = MoveRules.generateLegalMoves(position, moves);
+		Arrays.sort(moves, 0, count);
+		return count;
+	}
+
+	/**
+	 * Reads a string written as a short length and its bytes.
+	 */
+	private static String readString(ByteBuffer buffer, Charset charset) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, charset);
+	}
+
+	/**
+	 * Fills a buffer from a channel, then flips it for reading.
+	 * @throws EOFException If the channel ends first
+	 */
+	private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer) < 0)
+				throw new EOFException("Game record is cut short");
+		}
+		buffer.flip();
+	}
+}
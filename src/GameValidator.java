@@ -0,0 +1,326 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <code>GameValidator</code> class. This is not instantiated, only run from the command line to check PGN files
+ * against the rules in <code>MoveRules</code>: every move must be legal, no moves may follow the end of the game, and
+ * the result must agree with a game that ended on the board.
+ * Only what ends a game by itself counts as its end: checkmate, stalemate, a dead position, and the fivefold
+ * repetition and 75-move rules. Threefold repetition and the fifty-move rule only draw when claimed, and stored games
+ * often play on past them or end decisively on time, so they are never flagged.
+ * The files are cut into batches of whole games, which are replayed on a fork-join pool while the next batches are
+ * read. Batches are reported in file order however they finish, so the output is the same for any thread count.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.3
+ * @since 18 OCT 2026
+ */
+abstract class GameValidator {
+	// CONSTANTS //
+	static final int BATCH_GAMES = 256;
+	static final long PROGRESS_INTERVAL = 1000000000L; // nanoseconds between progress lines
+	// Kinds of problem, in the order they are checked
+	static final int NO_PROBLEM = -1;
+	static final int ILLEGAL_MOVE = 0;
+	static final int PLAYED_AFTER_END = 1;
+	static final int WRONG_RESULT = 2;
+	static final String[] PROBLEM_KINDS = {"illegal moves", "moves after the end", "wrong results"};
+	// Draws that need no claim, as statuses beyond those of MoveRules
+	static final int FIVEFOLD_REPETITION = -10;
+	static final int SEVENTY_FIVE_MOVE_RULE = -11;
+	static final int SEVENTY_FIVE_MOVE_PLIES = 150;
+
+	// Games, plies and busy nanoseconds of each pool thread; each entry is only written by its own thread
+	private static final Map<String, long[]> THREAD_STATS = new ConcurrentHashMap<>();
+
+	// METHODS //
+
+	/**
+	 * Replays a game and checks it
+	 * @param game The game, as read; its moves are already known to be legal up to any error
+	 * @param position A position to replay in, overwritten
+	 * @param description Where to append what is wrong, if anything
+	 * @return The kind of problem found, <code>NO_PROBLEM</code> if the game is fine
+	 */
+	static int check(PgnGame game, Position position, StringBuilder description) {
+		if(game.error != null) {
+			description.append(game.error);
+			return ILLEGAL_MOVE;
+		}
+		String fen = game.tag("FEN");
+		Fen.parse(fen == null ? Position.START_FEN : fen, position);
+		for(int i = 0; i < game.moveCount; i++) {
+			int status = endStatus(position);
+			if(status != MoveRules.PLAYING) {
+				description.append("Moves played after ").append(describe(status)).append(" at ply ").append(i + 1);
+				return PLAYED_AFTER_END;
+			}
+			position.makeMove(game.moves[i]);
+		}
+
+		// A game still going on may have any result, by resignation, agreement, a claim or time; one that ended on
+		// the board may not
+		String tagResult = game.tag("Result");
+		if(tagResult != null && !tagResult.equals(game.result)) {
+			description.append("Result tag is ").append(tagResult).append(" but the moves end with ")
+					.append(game.result);
+			return WRONG_RESULT;
+		}
+		int status = endStatus(position);
+		if(status != MoveRules.PLAYING && !PgnWriter.result(status).equals(game.result)) {
+			description.append("Ends in ").append(describe(status)).append(" but the result is ").append(game.result);
+			return WRONG_RESULT;
+		}
+		return NO_PROBLEM;
+	}
+
+	/**
+	 * Finds whether a game is over without anyone claiming a draw.
+	 * @param position The position
+	 * @return The winner's color, <code>MoveRules.STALEMATE</code>, <code>MoveRules.INSUFFICIENT_MATERIAL</code>,
+	 * <code>FIVEFOLD_REPETITION</code>, <code>SEVENTY_FIVE_MOVE_RULE</code>, or <code>MoveRules.PLAYING</code>
+	 */
+	static int endStatus(Position position) {
+		if(!MoveRules.hasLegalMove(position)) {
+			if(MoveRules.isKingChecked(position, position.sideToMove()))
+				return position.whiteToMove ? Piece.BLACK : Piece.WHITE;
+			return MoveRules.STALEMATE;
+		}
+		if(MoveRules.isInsufficientMaterial(position))
+			return MoveRules.INSUFFICIENT_MATERIAL;
+		if(position.halfmoveClock >= SEVENTY_FIVE_MOVE_PLIES)
+			return SEVENTY_FIVE_MOVE_RULE;
+		if(position.repetitionCount() >= 4)
+			return FIVEFOLD_REPETITION;
+		return MoveRules.PLAYING;
+	}
+
+	/**
+	 * Describes how a game ended.
+	 * @param status A status from <code>endStatus</code>, not <code>PLAYING</code>
+	 */
+	private static String describe(int status) {
+		switch(status) {
+			case Piece.WHITE:
+				return "checkmate by white";
+			case Piece.BLACK:
+				return "checkmate by black";
+			case MoveRules.STALEMATE:
+				return "stalemate";
+			case FIVEFOLD_REPETITION:
+				return "fivefold repetition";
+			case SEVENTY_FIVE_MOVE_RULE:
+				return "the 75-move rule";
+			default:
+				return "insufficient material";
+		}
+	}
+
+	/**
+	 * Checks every game in some PGN files, printing each problem found and a summary, with progress on standard
+	 * error.
+	 * @param args The files, optionally led by <code>--threads</code> and a thread count; all cores by default
+	 * @throws IOException If a file can't be read
+	 */
+	public static void main(String[] args) throws IOException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int first = 0;
+		if(args.length > 1 && args[0].equals("--threads")) {
+			threads = Integer.parseInt(args[1]);
+			first = 2;
+		}
+		if(first == args.length) {
+			System.err.println("Usage: GameValidator [--threads n] file.pgn...");
+			System.exit(2);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		ArrayDeque<Batch> pending = new ArrayDeque<>();
+		Report report = new Report();
+		for(int i = first; i < args.length; i++) {
+			Path file = Paths.get(args[i]);
+			try(BufferedReader input = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+				// Cut before a tag that follows movetext, outside any comment, once the batch is full. Comments are
+				// skipped as PgnReader skips them: braces don't nest, and outside them ';' and '%' comment out the
+				// rest of the line, braces included
+				StringBuilder text = new StringBuilder();
+				int games = 0;
+				boolean inMoves = false;
+				boolean inComment = false;
+				String line;
+				while((line = input.readLine()) != null) {
+					if(!inComment && line.startsWith("[")) {
+						if(inMoves && ++games == BATCH_GAMES) {
+							submit(pool, pending, new Batch(file, text.toString()), threads, report);
+							text.setLength(0);
+							games = 0;
+						}
+						inMoves = false;
+					} else {
+						for(int j = 0; j < line.length(); j++) {
+							char c = line.charAt(j);
+							if(inComment) {
+								if(c == '}')
+									inComment = false;
+							} else if(c == '{')
+								inComment = true;
+							else if(c == ';' || c == '%')
+								break;
+							else if(!Character.isWhitespace(c))
+								inMoves = true;
+						}
+					}
+					text.append(line).append('\n');
+				}
+				if(text.length() > 0)
+					submit(pool, pending, new Batch(file, text.toString()), threads, report);
+			}
+		}
+		while(!pending.isEmpty())
+			report.add(finish(pending.poll()));
+		pool.shutdown();
+		report.finish();
+		System.exit(report.problemTotal() > 0 ? 1 : 0);
+	}
+
+	/**
+	 * Waits for a batch to be replayed.
+	 */
+	private static Batch finish(Batch batch) {
+		batch.join();
+		return batch;
+	}
+
+	/**
+	 * Starts a batch, first reporting finished batches at the head of the queue; waits for the oldest batch when too
+	 * many are queued, which bounds the memory used.
+	 */
+	private static void submit(ForkJoinPool pool, ArrayDeque<Batch> pending, Batch batch, int threads,
+			Report report) {
+		while(!pending.isEmpty() && (pending.peek().isDone() || pending.size() >= threads * 4))
+			report.add(finish(pending.poll()));
+		pool.execute(batch);
+		pending.add(batch);
+	}
+
+	/**
+	 * A batch of whole games cut from a file, replayed on the pool.
+	 */
+	private static class Batch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		Path file;
+		String text;                    // dropped once replayed
+		int gameCount;
+		long plyCount;
+		int[] problemCounts;            // indexed by kind
+		List<Integer> problemGames;     // number within the batch of each game with a problem, in order
+		List<String> problems;
+
+		Batch(Path file, String text) {
+			this.file = file;
+			this.text = text;
+			problemCounts = new int[PROBLEM_KINDS.length];
+			problemGames = new ArrayList<>();
+			problems = new ArrayList<>();
+		}
+
+		@Override
+		protected void compute() {
+			long start = System.nanoTime();
+			Position position = new Position();
+			StringBuilder description = new StringBuilder();
+			try(PgnReader reader = new PgnReader(new StringReader(text))) {
+				while(reader.hasNext()) {
+					PgnGame game = reader.next();
+					gameCount++;
+					plyCount += game.moveCount;
+					description.setLength(0);
+					int kind = check(game, position, description);
+					if(kind != NO_PROBLEM) {
+						problemCounts[kind]++;
+						problemGames.add(game.number);
+						problems.add(description.toString());
+					}
+				}
+			} catch(IOException e) {
+				throw new UncheckedIOException(e); // Can't happen, reading from memory
+			}
+			text = null;
+			long[] stats = THREAD_STATS.computeIfAbsent(Thread.currentThread().getName(), name -> new long[3]);
+			stats[0] += gameCount;
+			stats[1] += plyCount;
+			stats[2] += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Prints the problems of batches, in the order they are added, and the totals.
+	 */
+	private static class Report {
+		long start = System.nanoTime();
+		long lastProgress = start;
+		Path file;
+		int gamesInFile;
+		long gameCount;
+		long plyCount;
+		long[] problemCounts = new long[PROBLEM_KINDS.length];
+
+		void add(Batch batch) {
+			if(!batch.file.equals(file)) {
+				file = batch.file;
+				gamesInFile = 0;
+			}
+			for(int i = 0; i < batch.problems.size(); i++)
+				System.out.println(String.format("%s game %d: %s", file, gamesInFile + batch.problemGames.get(i),
+						batch.problems.get(i)));
+			gamesInFile += batch.gameCount;
+			gameCount += batch.gameCount;
+			plyCount += batch.plyCount;
+			for(int kind = 0; kind < problemCounts.length; kind++)
+				problemCounts[kind] += batch.problemCounts[kind];
+
+			long now = System.nanoTime();
+			if(now - lastProgress >= PROGRESS_INTERVAL) {
+				lastProgress = now;
+				System.err.println(String.format("%,d games, %,d problems, %,.0f games/sec", gameCount, problemTotal(),
+						gameCount * 1e9 / (now - start)));
+			}
+		}
+
+		long problemTotal() {
+			long total = 0;
+			for(long count : problemCounts)
+				total += count;
+			return total;
+		}
+
+		void finish() {
+			double seconds = (System.nanoTime() - start) / 1e9;
+			StringBuilder summary = new StringBuilder();
+			for(int kind = 0; kind < problemCounts.length; kind++)
+				summary.append(String.format(", %,d %s", problemCounts[kind], PROBLEM_KINDS[kind]));
+			System.out.println(String.format("%,d games, %,d plies%s", gameCount, plyCount, summary));
+			System.out.println(String.format("%.2f s, %,.0f games/sec, %,.0f plies/sec", seconds, gameCount / seconds,
+					plyCount / seconds));
+			for(Map.Entry<String, long[]> entry : new TreeMap<>(THREAD_STATS).entrySet()) {
+				long[] stats = entry.getValue();
+				System.out.println(String.format("  %-28s %,10d games %,12.0f games/sec while busy", entry.getKey(),
+						stats[0], stats[0] * 1e9 / Math.max(1, stats[2])));
+			}
+		}
+	}
+}
@@ -1,13 +1,18 @@
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * <code>InfoPanel</code> class. This displays information relevant to the game.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.9
+ * @version 0.9.15
  * @since 4 APR 2020
  */
 public class InfoPanel extends JPanel implements ActionListener, BoardStateListener {
@@ -22,15 +27,26 @@ public class InfoPanel extends JPanel implements ActionListener, BoardStateListe
 	);
 	final double BUTTON_WIDTH_RATIO = 1;
 	final double BUTTON_HEIGHT_RATIO = 0.05;
+	final int ANALYSIS_REFRESH = 100; // milliseconds between updates of the analysis lines, at most
 	
 	// FIELDS //
 	int width, height;
-	int gameStatus; // 0 -> playing, 1 -> white, 2 -> black, -1 -> stalemate
+	int gameStatus; // 0 -> playing, 1 -> white, 2 -> black, negative -> draw (see MoveRules)
 	JButton newGameButton;
 	JButton undoMoveButton;
 	JButton redoMoveButton;
+	JButton analyzeButton;
+	JButton loadFenButton;
+	JButton copyFenButton;
+	JButton copyPgnButton;
+	JButton saveGameButton;
+	JButton loadGameButton;
 	BoardPanel boardPanel;
 	JLabel gameOverLabel;
+	Analysis analysis;
+	Timer analysisTimer;  // polls the analysis, so a burst of new lines costs one repaint
+	int[][] shownLines;   // the lines on display, to skip updates when nothing changed
+	JTextArea analysisText;
 	
 	// CONSTRUCTOR //
 	
@@ -54,13 +70,47 @@ public class InfoPanel extends JPanel implements ActionListener, BoardStateListe
 		this.redoMoveButton = new JButton("Redo Move");
 		redoMoveButton.addActionListener(this);
 
+		this.analyzeButton = new JButton("Analyze");
+		analyzeButton.addActionListener(this);
+
+		this.loadFenButton = new JButton("Load FEN");
+		loadFenButton.addActionListener(this);
+
+		this.copyFenButton = new JButton("Copy FEN");
+		copyFenButton.addActionListener(this);
+
+		this.copyPgnButton = new JButton("Copy PGN");
+		copyPgnButton.addActionListener(this);
+
+		this.saveGameButton = new JButton("Save Game");
+		saveGameButton.addActionListener(this);
+
+		this.loadGameButton = new JButton("Load Game");
+		loadGameButton.addActionListener(this);
+
 		setButtonSize();
 		this.add(newGameButton);
 		this.add(undoMoveButton);
 		this.add(redoMoveButton);
+		this.add(analyzeButton);
+		this.add(loadFenButton);
+		this.add(copyFenButton);
+		this.add(copyPgnButton);
+		this.add(saveGameButton);
+		this.add(loadGameButton);
 
 		gameOverLabel = new JLabel("");
 		this.add(gameOverLabel);
+
+		this.analysis = new Analysis(boardPanel);
+		this.analysisTimer = new Timer(ANALYSIS_REFRESH, this);
+		this.analysisText = new JTextArea();
+		analysisText.setEditable(false);
+		analysisText.setLineWrap(true);
+		analysisText.setOpaque(false);
+		analysisText.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 10));
+		analysisText.setAlignmentX(LEFT_ALIGNMENT);
+		this.add(analysisText);
 	}
 	
 	// METHODS //
@@ -86,6 +136,24 @@ public class InfoPanel extends JPanel implements ActionListener, BoardStateListe
 
 		redoMoveButton.setMinimumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
 		redoMoveButton.setMaximumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+
+		analyzeButton.setMinimumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+		analyzeButton.setMaximumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+
+		loadFenButton.setMinimumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+		loadFenButton.setMaximumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+
+		copyFenButton.setMinimumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+		copyFenButton.setMaximumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+
+		copyPgnButton.setMinimumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+		copyPgnButton.setMaximumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+
+		saveGameButton.setMinimumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+		saveGameButton.setMaximumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+
+		loadGameButton.setMinimumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
+		loadGameButton.setMaximumSize(new Dimension((int)(width * BUTTON_WIDTH_RATIO), (int)(height * BUTTON_HEIGHT_RATIO)));
 	}
 	
 	/**
@@ -108,6 +176,14 @@ public class InfoPanel extends JPanel implements ActionListener, BoardStateListe
 			gameOverLabel.setText("Black wins");
 		else if(gameStatus == -1)
 			gameOverLabel.setText("Draw by stalemate");
+		else if(gameStatus == -2)
+			gameOverLabel.setText("Draw by repetition");
+		else if(gameStatus == -3)
+			gameOverLabel.setText("Draw by fifty-move rule");
+		else if(gameStatus == -4)
+			gameOverLabel.setText("Draw by insufficient material");
+		else if(gameStatus == -5)
+			gameOverLabel.setText("Draw by endgame tables");
 	}
 	
 	/**
@@ -116,6 +192,14 @@ public class InfoPanel extends JPanel implements ActionListener, BoardStateListe
 	 */
 	@Override
 	public void actionPerformed(ActionEvent e) {
+		if(e.getSource() == analysisTimer) {
+			int[][] lines = analysis.getLines();
+			if(lines != shownLines) {
+				shownLines = lines;
+				analysisText.setText(Analysis.describe(lines));
+			}
+			return;
+		}
 		if(e.getSource() == newGameButton) {
 			boardPanel.setBoard();
 			boardPanel.gameStatus = 0;
@@ -128,10 +212,93 @@ public class InfoPanel extends JPanel implements ActionListener, BoardStateListe
 			if(boardPanel.undoneMoveStack.size() > 0) {
 				boardPanel.redoMove();
 			}
+		} else if(e.getSource() == analyzeButton) {
+			if(analysis.isRunning()) {
+				analysis.stop();
+				analysisTimer.stop();
+				shownLines = null;
+				analysisText.setText("");
+				analyzeButton.setText("Analyze");
+			} else {
+				analysis.restart();
+				analysisTimer.start();
+				analyzeButton.setText("Stop Analysis");
+			}
+		} else if(e.getSource() == loadFenButton) {
+			String fen = JOptionPane.showInputDialog(this, "Position in FEN:", "Load FEN", JOptionPane.PLAIN_MESSAGE);
+			if(fen != null && !fen.trim().isEmpty()) {
+				try {
+					boardPanel.loadPosition(fen);
+					this.gameStatus = boardPanel.gameStatus;
+					this.gameOverLabel.setText("");
+				} catch(IllegalArgumentException exception) {
+					JOptionPane.showMessageDialog(this, exception.getMessage(), "Load FEN", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		} else if(e.getSource() == copyFenButton) {
+			StringSelection fen = new StringSelection(boardPanel.position.toFen());
+			Toolkit.getDefaultToolkit().getSystemClipboard().setContents(fen, null);
+		} else if(e.getSource() == copyPgnButton) {
+			StringBuilder pgn = new StringBuilder();
+			try {
+				PgnWriter.write(pgn, boardPanel.position, boardPanel.doneMoveStack, playerName(Piece.WHITE),
+						playerName(Piece.BLACK));
+			} catch(IOException exception) {
+				throw new AssertionError(exception); // A StringBuilder doesn't throw
+			}
+			Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(pgn.toString()), null);
+		} else if(e.getSource() == saveGameButton) {
+			Path file = chooseGameFile(true);
+			if(file != null) {
+				try {
+					GameRecord.of(boardPanel.position, boardPanel.doneMoveStack, boardPanel.undoneMoveStack,
+							playerName(Piece.WHITE), playerName(Piece.BLACK)).save(file);
+				} catch(IOException exception) {
+					JOptionPane.showMessageDialog(this, exception.getMessage(), "Save Game", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		} else if(e.getSource() == loadGameButton) {
+			Path file = chooseGameFile(false);
+			if(file != null) {
+				try {
+					boardPanel.loadGame(GameRecord.load(file));
+					this.gameStatus = boardPanel.gameStatus;
+					this.gameOverLabel.setText("");
+				} catch(IOException exception) {
+					JOptionPane.showMessageDialog(this, exception.getMessage(), "Load Game", JOptionPane.ERROR_MESSAGE);
+				}
+			}
 		}
 		boardPanel.repaint();
 	}
 	
+	/**
+	 * Names a player for saved games.
+	 * @param color <code>Piece.WHITE</code> or <code>Piece.BLACK</code>.
+	 * @return "Computer", or "?" for a person.
+	 */
+	String playerName(int color) {
+		return boardPanel.computerPlays[color] ? "Computer" : "?";
+	}
+	
+	/**
+	 * Asks for a game file.
+	 * @param save Whether the file is to be saved, rather than loaded.
+	 * @return The file, with the game record extension added when saving, or <code>null</code> if cancelled.
+	 */
+	Path chooseGameFile(boolean save) {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("Chess games (*." + GameRecord.EXTENSION + ")",
+				GameRecord.EXTENSION));
+		int choice = save ? chooser.showSaveDialog(this) : chooser.showOpenDialog(this);
+		if(choice != JFileChooser.APPROVE_OPTION)
+			return null;
+		File file = chooser.getSelectedFile();
+		if(save && !file.getName().contains("."))
+			file = new File(file.getPath() + "." + GameRecord.EXTENSION);
+		return file.toPath();
+	}
+	
 	/**
 	 * Checks for check-/stalemate. Called by <code>BoardPanel</code>.
 	 */
@@ -140,4 +307,13 @@ public class InfoPanel extends JPanel implements ActionListener, BoardStateListe
 		this.gameStatus = boardPanel.gameStatus;
 		this.repaint();
 	}
+	
+	/**
+	 * Restarts the analysis, if it is on, on the new position. Called by <code>BoardPanel</code>.
+	 */
+	@Override
+	public void positionChanged() {
+		if(analysis.isRunning())
+			analysis.restart();
+	}
 }
@@ -0,0 +1,92 @@
+/**
+ * <code>Move</code> class. This is not instantiated, only packing moves into single <code>int</code>s.
+ * Bits 0-5 hold the starting square, bits 6-11 the final square, bits 12-14 the move type
+ * (<code>MoveRules.NORMAL</code>, <code>EN_PASSANT</code>, <code>CASTLE</code> or <code>PROMOTION</code>) and bits
+ * 15-18 the <code>Piece</code> type promoted to. A packed move is never 0, so 0 can stand for no move.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+abstract class Move {
+	// CONSTANTS //
+	static final int NONE = 0;
+	// No position has more legal moves than this
+	static final int MAX_MOVES = 256;
+
+	private static final String FILES = "abcdefgh";
+	private static final String PROMOTION_LETTERS = " pbnrqkpbnrqk";
+
+	// METHODS //
+
+	/**
+	 * Packs a move into an <code>int</code>
+	 * @param from The starting square
+	 * @param to The final square
+	 * @param type The move type from <code>MoveRules</code>
+	 * @param promotion The <code>Piece</code> type promoted to, <code>Piece.EMPTY</code> if none
+	 * @return The packed move
+	 */
+	static int encode(int from, int to, int type, int promotion) {
+		return from | to << 6 | type << 12 | promotion << 15;
+	}
+
+	/**
+	 * Gets the starting square of a move
+	 * @param move The packed move
+	 * @return The starting square
+	 */
+	static int from(int move) {
+		return move & 63;
+	}
+
+	/**
+	 * Gets the final square of a move
+	 * @param move The packed move
+	 * @return The final square
+	 */
+	static int to(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	/**
+	 * Gets the type of a move
+	 * @param move The packed move
+	 * @return <code>MoveRules.NORMAL</code>, <code>EN_PASSANT</code>, <code>CASTLE</code> or <code>PROMOTION</code>
+	 */
+	static int type(int move) {
+		return (move >>> 12) & 7;
+	}
+
+	/**
+	 * Gets the piece a move promotes to
+	 * @param move The packed move
+	 * @return The <code>Piece</code> type, <code>Piece.EMPTY</code> if the move isn't a promotion
+	 */
+	static int promotion(int move) {
+		return (move >>> 15) & 15;
+	}
+
+	/**
+	 * Gets the name of a square
+	 * @param square The square number
+	 * @return The name, e.g. "e4"
+	 */
+	static String squareName(int square) {
+		return "" + FILES.charAt(square & 7) + (char) ('1' + (square >>> 3));
+	}
+
+	/**
+	 * Writes a move in coordinate notation
+	 * @param move The packed move
+	 * @return The move, e.g. "e2e4" or "e7e8q"
+	 */
+	static String toString(int move) {
+		if(move == NONE)
+			return "0000";
+		String text = squareName(from(move)) + squareName(to(move));
+		if(type(move) == MoveRules.PROMOTION)
+			text += PROMOTION_LETTERS.charAt(promotion(move));
+		return text;
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * <code>MovePicker</code> class. Hands out the legal moves of a position one at a time, best guesses first, and only
+ * generates each group of moves once the one before it has run out:
+ * the hash move, then captures by most valuable victim and least valuable attacker, then the killer moves, then quiet
+ * moves by history score. A search that cuts off after the first move or two never generates the quiet moves at all.
+ * Each search keeps one picker per ply and resets it, so picking moves doesn't allocate. The quiescence search
+ * resets it to hand out captures only.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+class MovePicker {
+	// CONSTANTS //
+	// Stages, in order
+	static final int HASH_MOVE = 0;
+	static final int GENERATE_CAPTURES = 1;
+	static final int CAPTURES = 2;
+	static final int FIRST_KILLER = 3;
+	static final int SECOND_KILLER = 4;
+	static final int GENERATE_QUIETS = 5;
+	static final int QUIETS = 6;
+	static final int DONE = 7;
+
+	// FIELDS //
+	Position position;
+	int[] moves;
+	int[] scores;
+	int count;
+	int index;
+	int stage;
+	int hashMove;
+	int firstKiller;
+	int secondKiller;
+	int[][] history;    // 1st index -> piece type, 2nd index -> target square; may be null
+	boolean capturesOnly;
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates a picker with its own buffers.
+	 */
+	MovePicker() {
+		moves = new int[Move.MAX_MOVES];
+		scores = new int[Move.MAX_MOVES];
+		stage = DONE;
+	}
+
+	// METHODS //
+
+	/**
+	 * Starts picking moves in a new position
+	 * @param position The position; it must not change until the picker is done, except by moves that are undone
+	 * before the next call to <code>next</code>
+	 * @param hashMove The move to try first, <code>Move.NONE</code> if none
+	 * @param firstKiller A quiet move that caused a cutoff at this ply before, <code>Move.NONE</code> if none
+	 * @param secondKiller An older one, <code>Move.NONE</code> if none
+	 * @param history Quiet move scores, or <code>null</code> to leave quiet moves unordered
+	 */
+	void reset(Position position, int hashMove, int firstKiller, int secondKiller, int[][] history) {
+		this.position = position;
+		this.hashMove = hashMove;
+		this.firstKiller = firstKiller;
+		this.secondKiller = secondKiller;
+		this.history = history;
+		capturesOnly = false;
+		count = 0;
+		index = 0;
+		stage = HASH_MOVE;
+	}
+
+	/**
+	 * Starts picking only captures, en passant captures and promotions in a new position
+	 * @param position The position, under the same conditions as for <code>reset</code>
+	 */
+	void resetCaptures(Position position) {
+		reset(position, Move.NONE, Move.NONE, Move.NONE, null);
+		capturesOnly = true;
+		stage = GENERATE_CAPTURES;
+	}
+
+	/**
+	 * Gets the next move to try
+	 * @return The move, <code>Move.NONE</code> when there are no more
+	 */
+	int next() {
+		while(true) {
+			switch(stage) {
+				case HASH_MOVE:
+					stage = GENERATE_CAPTURES;
+					if(MoveRules.isLegalMove(position, hashMove))
+						return hashMove;
+					hashMove = Move.NONE;
+					break;
+				case GENERATE_CAPTURES:
+					count = MoveRules.generateCaptures(position, moves);
+					for(int i = 0; i < count; i++)
+						scores[i] = captureScore(moves[i]);
+					index = 0;
+					stage = CAPTURES;
+					break;
+				case CAPTURES: {
+					int move = pickBest();
+					if(move != Move.NONE)
+						return move;
+					stage = capturesOnly ? DONE : FIRST_KILLER;
+					break;
+				}
+				case FIRST_KILLER:
+					stage = SECOND_KILLER;
+					if(isUsableKiller(firstKiller))
+						return firstKiller;
+					firstKiller = Move.NONE;
+					break;
+				case SECOND_KILLER:
+					stage = GENERATE_QUIETS;
+					if(secondKiller != firstKiller && isUsableKiller(secondKiller))
+						return secondKiller;
+					secondKiller = Move.NONE;
+					break;
+				case GENERATE_QUIETS:
+					count = MoveRules.generateQuiets(position, moves);
+					for(int i = 0; i < count; i++)
+						scores[i] = history == null ? 0 : history[position.pieceAt(Move.from(moves[i]))][Move.to(moves[i])];
+					index = 0;
+					stage = QUIETS;
+					break;
+				case QUIETS: {
+					int move = pickBest();
+					if(move != Move.NONE)
+						return move;
+					stage = DONE;
+					break;
+				}
+				default:
+					return Move.NONE;
+			}
+		}
+	}
+
+	/**
+	 * Takes the best scored move left in the current stage, skipping moves an earlier stage already returned.
+	 * A selection step per call: after a cutoff the rest never needs sorting.
+	 */
+	private int pickBest() {
+		while(index < count) {
+			int best = index;
+			for(int i = index + 1; i < count; i++)
+				if(scores[i] > scores[best])
+					best = i;
+			int move = moves[best];
+			moves[best] = moves[index];
+			scores[best] = scores[index];
+			index++;
+			// Killers are only ever returned as quiet moves, so only the quiet stage skips them
+			if(move != hashMove && (stage != QUIETS || (move != firstKiller && move != secondKiller)))
+				return move;
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * Scores a capture by most valuable victim, then least valuable attacker. Promotions count the piece gained.
+	 */
+	private int captureScore(int move) {
+		int victim = Move.type(move) == MoveRules.EN_PASSANT ? Piece.WHITE_PAWN : position.pieceAt(Move.to(move));
+		int score = Evaluation.PIECE_VALUES[victim] * 16 - Evaluation.PIECE_VALUES[position.pieceAt(Move.from(move))] / 16;
+		if(Move.type(move) == MoveRules.PROMOTION)
+			score += Evaluation.PIECE_VALUES[Move.promotion(move)] * 16;
+		return score;
+	}
+
+	/**
+	 * Checks that a killer is a legal quiet move here that the hash move didn't already cover.
+	 */
+	private boolean isUsableKiller(int move) {
+		return move != Move.NONE && move != hashMove && !MoveRules.isCapture(position, move)
+				&& MoveRules.isLegalMove(position, move);
+	}
+}
@@ -4,7 +4,7 @@ import java.util.ArrayDeque;
  * <code>MoveRules</code> class. This is not instantiated, only providing methods to determine if doneMoveStack are valid.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.19
+ * @version 0.9.32
  * @since 9 APR 2020
  */
 abstract class MoveRules {
@@ -16,432 +16,600 @@ abstract class MoveRules {
 	static final int PROMOTION = 4;
 	
 	static final int STALEMATE = -1;
+	static final int THREEFOLD_REPETITION = -2;
+	static final int FIFTY_MOVE_RULE = -3;
+	static final int INSUFFICIENT_MATERIAL = -4;
+	static final int BITBASE_DRAW = -5;  // a drawn endgame, called early by adjudicate
 	static final int PLAYING = 0;
+
+	static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+	static final long PROMOTION_RANKS = Position.RANK_1 | Position.RANK_8;
+
+	// Piece types of one side from least to most valuable, as offsets from the side's pawn
+	static final int[] EXCHANGE_ORDER = {0, 2, 1, 3, 4, 5};
+	static final int EXCHANGE_LENGTH = 32;  // gains staticExchange may need, one per piece on the board
+
+	// Which moves generateLegal writes
+	static final int ALL_MOVES = 0;
+	static final int CAPTURES = 1;   // captures, en passant and promotions
+	static final int QUIETS = 2;     // everything else, castling included
 	
 	/**
-	 * Gets possible moves of a specific piece
+	 * Gets possible moves of a specific piece. Thin wrapper around <code>generateLegalMoves</code> for the GUI.
+	 * Moves of the side to move are checked for legality; moves of the other side are only pseudo-legal.
+	 * @param position The current position
+	 * @param pieceRank The grid rank of the piece to move
+	 * @param pieceFile The grid file of the piece to move
+	 * @return The possible moves of the piece, as move types on a 10x10 grid
+	 */
+	static int[][] getPossMoves(Position position, int pieceRank, int pieceFile) {
+		int[][] possibleMoves = new int[10][10];
+		if(pieceRank < 1 || pieceRank > 8 || pieceFile < 1 || pieceFile > 8)
+			return possibleMoves;
+		int from = Position.toSquare(pieceRank, pieceFile);
+		int pieceType = position.pieceAt(from);
+		if(pieceType == Piece.EMPTY)
+			return possibleMoves;
+
+		int[] moves = new int[Move.MAX_MOVES];
+		int count;
+		if(Position.colorOf(pieceType) == position.sideToMove())
+			count = generateLegalMoves(position, moves);
+		else
+			count = addMoves(position, from, getMoves(position, from), moves, 0);
+		for(int i = 0; i < count; i++) {
+			if(Move.from(moves[i]) == from) {
+				int to = Move.to(moves[i]);
+				possibleMoves[Position.gridRank(to)][Position.gridFile(to)] = Move.type(moves[i]);
+			}
+		}
+		return possibleMoves;
+	}
+
+	/**
+	 * Writes every legal move of the side to move into a buffer, without allocating
+	 * @param position The current position
+	 * @param moves The buffer to fill with packed moves; needs room for <code>Move.MAX_MOVES</code>
+	 * @return The number of moves written
+	 */
+	static int generateLegalMoves(Position position, int[] moves) {
+		return generateLegal(position, moves, ALL_MOVES, false);
+	}
+
+	/**
+	 * Writes the legal captures, en passant captures and promotions of the side to move into a buffer
+	 * @param position The current position
+	 * @param moves The buffer to fill with packed moves; needs room for <code>Move.MAX_MOVES</code>
+	 * @return The number of moves written
+	 */
+	static int generateCaptures(Position position, int[] moves) {
+		return generateLegal(position, moves, CAPTURES, false);
+	}
+
+	/**
+	 * Writes the legal moves of the side to move that <code>generateCaptures</code> leaves out
+	 * @param position The current position
+	 * @param moves The buffer to fill with packed moves; needs room for <code>Move.MAX_MOVES</code>
+	 * @return The number of moves written
+	 */
+	static int generateQuiets(Position position, int[] moves) {
+		return generateLegal(position, moves, QUIETS, false);
+	}
+
+	/**
+	 * Generates legal moves directly. Checkers and pinned pieces are found once, so only king moves need an
+	 * attack test per move; everything else is limited to the check evasion squares and its pin line.
+	 * @param position The current position
+	 * @param moves The buffer to fill, can be <code>null</code> if <code>stopAtFirst</code> is set
+	 * @param kind <code>ALL_MOVES</code>, <code>CAPTURES</code> or <code>QUIETS</code>
+	 * @param stopAtFirst Whether to stop at the first legal move found
+	 * @return The number of moves found
+	 */
+	private static int generateLegal(Position position, int[] moves, int kind, boolean stopAtFirst) {
+		int color = position.sideToMove();
+		int kingSquare = position.kingSquare(color);
+		if(kingSquare == Position.NO_SQUARE) { // Not a real game; nothing to keep safe
+			int count = generatePseudoLegalMoves(position, moves == null ? new int[Move.MAX_MOVES] : moves);
+			if(kind != ALL_MOVES) {
+				int kept = 0;
+				for(int i = 0; i < count; i++)
+					if(isCapture(position, moves[i]) == (kind == CAPTURES))
+						moves[kept++] = moves[i];
+				count = kept;
+			}
+			return stopAtFirst ? Math.min(count, 1) : count;
+		}
+		long friendly = position.colors[color];
+		long enemies = position.colors[3 - color];
+		long kingBit = 1L << kingSquare;
+		int count = 0;
+		// Target squares of the kind asked for; pawns also count promotion pushes as captures
+		long pieceMask = kind == CAPTURES ? enemies : kind == QUIETS ? ~position.occupied : -1L;
+		long pawnMask = kind == CAPTURES ? enemies | PROMOTION_RANKS
+				: kind == QUIETS ? ~position.occupied & ~PROMOTION_RANKS : -1L;
+
+		// KING
+		long targets = Attacks.KING[kingSquare] & ~friendly & pieceMask;
+		while(targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			// Take the king off the board so it can't hide behind itself from a slider
+			if((attackersTo(position, to, position.occupied ^ kingBit) & enemies) == 0) {
+				if(stopAtFirst)
+					return 1;
+				moves[count++] = Move.encode(kingSquare, to, NORMAL, Piece.EMPTY);
+			}
+		}
+		long checkers = attackersTo(position, kingSquare, position.occupied) & enemies;
+		if((checkers & (checkers - 1)) != 0) // Double check: only the king can move
+			return count;
+		// Squares that block or capture a single checker
+		long evasions = -1L;
+		if(checkers != 0)
+			evasions = checkers | Attacks.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+		else if(kind != CAPTURES) {
+			long castles = getKingMoves(position, kingSquare) & ~Attacks.KING[kingSquare];
+			while(castles != 0) {
+				int to = Long.numberOfTrailingZeros(castles);
+				castles &= castles - 1;
+				if(stopAtFirst)
+					return 1;
+				moves[count++] = Move.encode(kingSquare, to, CASTLE, Piece.EMPTY);
+			}
+		}
+
+		// OTHER PIECES
+		long pinned = getPinnedPieces(position, color);
+		long pawns = position.pieces[color == Piece.WHITE ? Piece.WHITE_PAWN : Piece.BLACK_PAWN];
+		long enPassantBit = position.enPassantSquare == Position.NO_SQUARE ? 0 : 1L << position.enPassantSquare;
+		int[] squares = position.pieceList[color];
+		for(int i = 0; i < position.pieceCount[color]; i++) {
+			int from = squares[i];
+			if(from == kingSquare)
+				continue;
+			targets = getMoves(position, from) & evasions;
+			if((pinned & 1L << from) != 0)
+				targets &= Attacks.LINE[kingSquare][from];
+			if((pawns & 1L << from) != 0) // En passant is handled below
+				targets &= ~enPassantBit & pawnMask;
+			else
+				targets &= pieceMask;
+			if(targets == 0)
+				continue;
+			if(stopAtFirst)
+				return 1;
+			count = addMoves(position, from, targets, moves, count);
+		}
+
+		// EN PASSANT: the captured pawn leaves its square too, so check it directly
+		if(position.enPassantSquare != Position.NO_SQUARE && kind != QUIETS) {
+			long capturers = Attacks.PAWN[3 - color][position.enPassantSquare] & pawns;
+			while(capturers != 0) {
+				int from = Long.numberOfTrailingZeros(capturers);
+				capturers &= capturers - 1;
+				int move = Move.encode(from, position.enPassantSquare, EN_PASSANT, Piece.EMPTY);
+				if(isLegal(position, move)) {
+					if(stopAtFirst)
+						return 1;
+					moves[count++] = move;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the pieces of one side that are pinned to their king
+	 * @param position The current position
+	 * @param color The side whose pieces to check
+	 * @return The pinned pieces as a mask
+	 */
+	static long getPinnedPieces(Position position, int color) {
+		int kingSquare = position.kingSquare(color);
+		if(kingSquare == Position.NO_SQUARE)
+			return 0;
+		boolean white = color == Piece.WHITE;
+		long[] pieces = position.pieces;
+		long queens = pieces[white ? Piece.BLACK_QUEEN : Piece.WHITE_QUEEN];
+		// Enemy sliders that would attack the king on an empty board
+		long snipers = (Attacks.rook(kingSquare, 0) & (pieces[white ? Piece.BLACK_ROOK : Piece.WHITE_ROOK] | queens))
+				| (Attacks.bishop(kingSquare, 0) & (pieces[white ? Piece.BLACK_BISHOP : Piece.WHITE_BISHOP] | queens));
+		long pinned = 0;
+		while(snipers != 0) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			snipers &= snipers - 1;
+			long blockers = Attacks.BETWEEN[kingSquare][sniper] & position.occupied;
+			if(blockers != 0 && (blockers & (blockers - 1)) == 0)
+				pinned |= blockers & position.colors[color];
+		}
+		return pinned;
+	}
+
+	/**
+	 * Writes every move of the side to move into a buffer, including ones that leave the king in check
+	 * @param position The current position
+	 * @param moves The buffer to fill with packed moves
+	 * @return The number of moves written
+	 */
+	static int generatePseudoLegalMoves(Position position, int[] moves) {
+		int count = 0;
+		int color = position.sideToMove();
+		int[] squares = position.pieceList[color];
+		for(int i = 0; i < position.pieceCount[color]; i++)
+			count = addMoves(position, squares[i], getMoves(position, squares[i]), moves, count);
+		return count;
+	}
+
+	/**
+	 * Packs the moves of one piece into a buffer. Promotions are written once per piece to promote to.
+	 * @return The new number of moves in the buffer
+	 */
+	private static int addMoves(Position position, int from, long targets, int[] moves, int count) {
+		boolean white = Position.colorOf(position.pieceAt(from)) == Piece.WHITE;
+		while(targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			int moveType = getMoveType(position, from, to);
+			if(moveType == PROMOTION) {
+				moves[count++] = Move.encode(from, to, PROMOTION, white ? Piece.WHITE_QUEEN : Piece.BLACK_QUEEN);
+				moves[count++] = Move.encode(from, to, PROMOTION, white ? Piece.WHITE_ROOK : Piece.BLACK_ROOK);
+				moves[count++] = Move.encode(from, to, PROMOTION, white ? Piece.WHITE_BISHOP : Piece.BLACK_BISHOP);
+				moves[count++] = Move.encode(from, to, PROMOTION, white ? Piece.WHITE_KNIGHT : Piece.BLACK_KNIGHT);
+			} else
+				moves[count++] = Move.encode(from, to, moveType, Piece.EMPTY);
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the pseudo-legal target squares of a piece
 	 * Calls a specific helper method based on the piece type
-	 * @param board The current pieces on the board
-	 * @param pieceRank The rank of the piece to move
-	 * @param pieceFile The file of the piece to move
-	 * @param doneMoveStack All completed moves
-	 * @param whiteToMove The team to move
-	 * @return The possible moves of the piece
+	 * @param position The current position
+	 * @param square The square of the piece
+	 * @return The target squares as a mask
 	 */
-	static int[][] getPossMoves(Piece[][] board, int pieceRank, int pieceFile, ArrayDeque<State> doneMoveStack, boolean whiteToMove) {
-		Piece toMove = board[pieceRank][pieceFile];
-		int pieceType = toMove.getType();
+	static long getMoves(Position position, int square) {
+		int pieceType = position.pieceAt(square);
 		if(pieceType > 6)
 			pieceType -= 6;
-		int[][] possibleMoves;
 		switch(pieceType) {
 			case 1:
-				possibleMoves = getPawnMoves(board, pieceRank, pieceFile, doneMoveStack);
-				break;
+				return getPawnMoves(position, square);
 			case 2:
-                possibleMoves = getBishopMoves(board, pieceRank, pieceFile);
-                break;
+				return getBishopMoves(position, square);
 			case 3:
-                possibleMoves = getKnightMoves(board, pieceRank, pieceFile);
-                break;
+				return getKnightMoves(position, square);
 			case 4:
-                possibleMoves = getRookMoves(board, pieceRank, pieceFile);
-                break;
+				return getRookMoves(position, square);
 			case 5:
-                possibleMoves = getQueenMoves(board, pieceRank, pieceFile);
-                break;
+				return getQueenMoves(position, square);
 			case 6:
-                possibleMoves = getKingMoves(board, pieceRank, pieceFile, doneMoveStack, whiteToMove);
-                break;
+				return getKingMoves(position, square);
 			default:
-                possibleMoves = new int[10][10];
-		}
-
-		// Check if king is attacked after each move
-        boolean pieceColorWhite;
-        pieceColorWhite = board[pieceRank][pieceFile].getTeamColor() == Piece.WHITE;
-		if(whiteToMove == pieceColorWhite) { // only check if it's that side's move
-            for(int rank = 1; rank <= 8; rank++) {
-                for(int file = 1; file <= 8; file++) {
-                    if(possibleMoves[rank][file] > 0) {
-                        Piece[][] boardAfterMove = getBoardAfterMove(board, pieceRank, pieceFile, rank, file, possibleMoves[rank][file]);
-                        boolean validMove = !isKingCheckedAfterMove(boardAfterMove, whiteToMove, doneMoveStack);
-                        if(!validMove)
-                            possibleMoves[rank][file] = 0;
-                    }
-                }
-            }
+				return 0;
 		}
+	}
 
-		return possibleMoves;
+	/**
+	 * Determines the type of a move from its squares
+	 * @param position The position before the move
+	 * @param from The starting square
+	 * @param to The final square
+	 * @return <code>NORMAL</code>, <code>EN_PASSANT</code>, <code>CASTLE</code> or <code>PROMOTION</code>
+	 */
+	static int getMoveType(Position position, int from, int to) {
+		int pieceType = position.pieceAt(from);
+		if(pieceType == Piece.WHITE_PAWN || pieceType == Piece.BLACK_PAWN) {
+			if(to == position.enPassantSquare)
+				return EN_PASSANT;
+			if(to < 8 || to >= 56)
+				return PROMOTION;
+		} else if((pieceType == Piece.WHITE_KING || pieceType == Piece.BLACK_KING) && Math.abs(to - from) == 2)
+			return CASTLE;
+		return NORMAL;
 	}
 
 	/**
 	 * Finds possible moves of a pawn
-	 * @param board The current pieces on the board
-	 * @param rank The rank of the pawn
-	 * @param file The file of the pawn
-	 * @param doneMoveStack All completed moves
+	 * @param position The current position
+	 * @param square The square of the pawn
 	 * @return The possible moves of the pawn
-
 	 */
-	static int[][] getPawnMoves(Piece[][] board, int rank, int file, ArrayDeque<State> doneMoveStack) {
-		int[][] possibleMoves = new int[10][10];
-		int pawnColor = board[rank][file].getTeamColor();
+	static long getPawnMoves(Position position, int square) {
+		long pawn = 1L << square;
+		long empty = ~position.occupied;
 		// Separate the diff. color pawns b/c they move in opposite directions
-		if(pawnColor == Piece.BLACK) {
-			// Forward movement
-			if(board[rank + 1][file].getTeamColor() == Piece.EMPTY) {
-				// Default 1-square step
-                possibleMoves[rank + 1][file] = 1;
-				// Starting position 2-step
-                if(rank == 2 && board[rank + 2][file].getTeamColor() == Piece.EMPTY)
-                    possibleMoves[rank + 2][file] = 1;
-			}
-			// Diag. capture, Southwest
-			if(file != 1 && board[rank + 1][file - 1].getTeamColor() != Piece.EMPTY
-					&& pawnColor != board[rank + 1][file - 1].getTeamColor()) {
-					possibleMoves[rank + 1][file - 1] = 1;
-			}
-			// Diag. capture, Southeast
-			if(file != 8 && board[rank + 1][file + 1].getTeamColor() != Piece.EMPTY
-					&& pawnColor != board[rank + 1][file + 1].getTeamColor()) {
-					possibleMoves[rank + 1][file + 1] = 1;
-			}
-
-			// En passant
-			if(rank == 5) {
-				State lastState = doneMoveStack.peekLast();
-				if(lastState != null) {
-					Piece[][] lastBoard = lastState.getBoard();
-					// Capture down and left
-					if(file != 1 &&
-							board[rank][file-1].getType() == Piece.WHITE_PAWN &&
-							board[rank+2][file-1].getType() == Piece.EMPTY &&
-							board[rank+1][file-1].getType() == Piece.EMPTY &&
-							lastBoard[rank+2][file-1].getType() == Piece.WHITE_PAWN) {
-					    possibleMoves[rank+1][file-1] = 2;
-					}
-					// Capture down and right
-					else if(file != 8 &&
-							board[rank][file+1].getType() == Piece.WHITE_PAWN &&
-							board[rank+2][file+1].getType() == Piece.EMPTY &&
-							board[rank+1][file+1].getType() == Piece.EMPTY &&
-							lastBoard[rank+2][file+1].getType() == Piece.WHITE_PAWN) {
-					    possibleMoves[rank+1][file+1] = 2;
-					}
-				}
-			}
-			if(rank == 7)
-				for(int f = 1; f <= 8; f++)
-					possibleMoves[8][f] *= 4; // Turn move from MoveRules.NORMAL into MoveRules.PROMOTION
-		}
-		// pawnColor == Piece.WHITE
-		else {
-			// Forward movement
-			if(board[rank - 1][file].getTeamColor() == Piece.EMPTY) {
-				// Default 1-square step
-                possibleMoves[rank - 1][file] = 1;
-				// Starting position 2-step
-                if(rank == 7 && board[rank - 2][file].getTeamColor() == Piece.EMPTY)
-                    possibleMoves[rank - 2][file] = 1;
-			}
-			// Diag. capture, Northwest
-			if(file != 1 && board[rank - 1][file - 1].getTeamColor() != Piece.EMPTY
-					&& pawnColor != board[rank - 1][file - 1].getTeamColor()) {
-					possibleMoves[rank - 1][file - 1] = 1;
-			}
-			// Diag. capture, Northeast
-			if(file != 8 && board[rank - 1][file + 1].getTeamColor() != Piece.EMPTY
-					&& pawnColor != board[rank - 1][file + 1].getTeamColor()) {
-					possibleMoves[rank - 1][file + 1] = 1;
-			}
-
-			// En passant
-			if(rank == 4 && doneMoveStack.size() >= 3) {
-				Piece[][] blackLastBoard = doneMoveStack.pop().getBoard();
-				// Capture up and left
-				if(     file != 1 &&
-						board[rank][file-1].getType() == Piece.BLACK_PAWN &&         // Pawn to capture
-						board[rank-2][file-1].getType() == Piece.EMPTY &&            // Pawn init. square 
-						board[rank-1][file-1].getType() == Piece.EMPTY &&            // Square to move
-						blackLastBoard[rank-2][file-1].getType() == Piece.BLACK_PAWN // Last move by Black
-				) {
-				    possibleMoves[rank-1][file-1] = 2;
-				}
-				// Capture down and right
-				else if(file != 8 &&
-						board[rank][file+1].getType() == Piece.BLACK_PAWN &&
-						board[rank-2][file+1].getType() == Piece.EMPTY &&
-						board[rank-1][file+1].getType() == Piece.EMPTY &&
-						blackLastBoard[rank-2][file+1].getType() == Piece.BLACK_PAWN
-				) {
-				    possibleMoves[rank-1][file+1] = 2;
-				}
-				
-				doneMoveStack.push(new State(blackLastBoard));
-			}
-			if(rank == 2)
-				for(int f = 1; f <= 8; f++)
-					possibleMoves[1][f] *= 4; // Turn move from MoveRules.NORMAL into MoveRules.PROMOTION
+		if(position.pieceAt(square) == Piece.WHITE_PAWN) {
+			long enemies = position.colors[Piece.BLACK];
+			if(position.enPassantSquare != Position.NO_SQUARE && position.whiteToMove)
+				enemies |= 1L << position.enPassantSquare;
+			// Default 1-square step, then starting position 2-step
+			long pushes = (pawn << 8) & empty;
+			pushes |= ((pushes & Position.RANK_1 << 16) << 8) & empty;
+			return pushes | (Attacks.PAWN[Piece.WHITE][square] & enemies);
+		} else {
+			long enemies = position.colors[Piece.WHITE];
+			if(position.enPassantSquare != Position.NO_SQUARE && !position.whiteToMove)
+				enemies |= 1L << position.enPassantSquare;
+			long pushes = (pawn >>> 8) & empty;
+			pushes |= ((pushes & Position.RANK_1 << 40) >>> 8) & empty;
+			return pushes | (Attacks.PAWN[Piece.BLACK][square] & enemies);
 		}
-		return possibleMoves;
 	}
 
 	/**
 	 * Finds possible moves of a knight
-	 * @param board The current pieces on the board
-	 * @param rank The rank of the knight
-	 * @param file The file of the knight
+	 * @param position The current position
+	 * @param square The square of the knight
 	 * @return The possible moves of the knight
 	 */
-	static int[][] getKnightMoves(Piece[][] board, int rank, int file) {
-		int[][] possibleMoves = new int[10][10];
-		int knightColor = board[rank][file].getTeamColor();
-		int[] xOffsets = new int[] {-2, -2, -1, -1, +1, +1, +2, +2};
-		int[] yOffsets = new int[] {-1, +1, -2, +2, -2, +2, -1, +1};
-		for(int i = 0; i < 8; i++) {
-			int newRank = rank + xOffsets[i];
-			int newFile = file + yOffsets[i];
-			if(newRank >= 1 && newRank <= 8
-				&& newFile >= 1 && newFile <= 8
-				&& board[newRank][newFile].getTeamColor() != knightColor)
-				possibleMoves[newRank][newFile] = 1;
-		}
-
-		return possibleMoves;
+	static long getKnightMoves(Position position, int square) {
+		return Attacks.KNIGHT[square] & ~position.colors[Position.colorOf(position.pieceAt(square))];
 	}
 
 	/**
 	 * Finds possible moves of a bishop
-	 * @param board The current pieces on the board
-	 * @param rank The rank of the bishop
-	 * @param file The file of the bishop
+	 * @param position The current position
+	 * @param square The square of the bishop
 	 * @return The possible moves of the bishop
 	 */
-	static int[][] getBishopMoves(Piece[][] board, int rank, int file) {
-		int[][] possibleMoves = new int[10][10];
+	static long getBishopMoves(Position position, int square) {
+		return Attacks.bishop(square, position.occupied) & ~position.colors[Position.colorOf(position.pieceAt(square))];
+	}
 
-		int rankTo;
-		int fileTo;
-		int bishopColor = board[rank][file].getTeamColor();
-		int[] xOffsets = new int[] {+1, +1, -1, -1};
-		int[] yOffsets = new int[] {+1, -1, +1, -1};
-		for(int i = 0; i < 4; i++) {
-			rankTo = rank;
-			fileTo = file;
-			while(true) { // up and right
-				rankTo += yOffsets[i];
-				fileTo += xOffsets[i];
-				if(rankTo >= 1 && rankTo <= 8 && fileTo >= 1 && fileTo <= 8) {
-					if(board[rankTo][fileTo].getTeamColor() + bishopColor == 3) { // OPPOSITE COLORS
-						possibleMoves[rankTo][fileTo] = 1;
-						break;
-					} else if(board[rankTo][fileTo].getTeamColor() == Piece.EMPTY) { // EMPTY SQUARE
-						possibleMoves[rankTo][fileTo] = 1;
-					} else { // SAME COLOR
-						break;
-					}
-				} else {
-					break;
-				}
-			}
-		}
-		return possibleMoves;
+	/**
+	 * Finds possible moves of a rook
+	 * @param position The current position
+	 * @param square The square of the rook
+	 * @return The possible moves of the rook
+	 */
+	static long getRookMoves(Position position, int square) {
+		return Attacks.rook(square, position.occupied) & ~position.colors[Position.colorOf(position.pieceAt(square))];
 	}
 
-    /**
-     * Finds possible moves of a rook
-     * @param board The current pieces on the board
-     * @param rank The rank of the rook
-     * @param file The file of the rook
-     * @return The possible moves of the rook
-     */
-    static int[][] getRookMoves(Piece[][] board, int rank, int file) {
-        int[][] possibleMoves = new int[10][10];
-
-        int rankTo;
-        int fileTo;
-        int rookColor = board[rank][file].getTeamColor();
-        int[] xOffsets = new int[] {+1, -1, +0, +0};
-        int[] yOffsets = new int[] {+0, +0, +1, -1};
-        for(int i = 0; i < 4; i++) {
-            rankTo = rank;
-            fileTo = file;
-            while(true) {
-                rankTo += yOffsets[i];
-                fileTo += xOffsets[i];
-                if(rankTo >= 1 && rankTo <= 8 && fileTo >= 1 && fileTo <= 8) {
-                    if(board[rankTo][fileTo].getTeamColor() + rookColor == 3) { // OPPOSITE COLORS
-                        possibleMoves[rankTo][fileTo] = 1;
-                        break;
-                    } else if(board[rankTo][fileTo].getTeamColor() == Piece.EMPTY) { // EMPTY SQUARE
-                        possibleMoves[rankTo][fileTo] = 1;
-                    } else { // SAME COLOR
-                        break;
-                    }
-                } else {
-                    break;
-                }
-            }
-        }
-        return possibleMoves;
-    }
-
-    /**
-     * Finds possible moves of a queen
-     * @param board The current pieces on the board
-     * @param rank The rank of the queen
-     * @param file The file of the queen
-     * @return The possible moves of the queen
-     */
-    static int[][] getQueenMoves(Piece[][] board, int rank, int file) {
-        int[][] possibleMoves = new int[10][10];
-        int[][] bishopMoves   = getBishopMoves(board, rank, file);
-        int[][] rookMoves     = getRookMoves(board, rank, file);
-        for(int rankTo = 1; rankTo <= 8; rankTo++)
-            for(int fileTo = 1; fileTo <= 8; fileTo++)
-            	possibleMoves[rankTo][fileTo] = bishopMoves[rankTo][fileTo] + rookMoves[rankTo][fileTo];
-        return possibleMoves;
-    }
-
-    /**
-     * Finds possible moves of a king
-     * @param board The current pieces on the board
-     * @param rank The rank of the king
-     * @param file The file of the king
-	 * @param doneMoveStack All completed moves
-	 * @param whiteToMove The team to move
-     * @return The possible moves of the king
-     */
-    static int[][] getKingMoves(Piece[][] board, int rank, int file, ArrayDeque<State> doneMoveStack, boolean whiteToMove) {
-        int[][] possibleMoves = new int[10][10];
-
-        int kingColor = board[rank][file].getTeamColor();
-        boolean isKingWhite = (kingColor == Piece.WHITE);
-        int[] xOffsets = new int[] {-1, -1, -1, +0, +0, +1, +1, +1};
-        int[] yOffsets = new int[] {-1, +0, +1, -1, +1, -1, +0, +1};
-        for(int i = 0; i < 8; i++) {
-            int rankTo = rank + yOffsets[i];
-            int fileTo = file + xOffsets[i];
-            if(rankTo >= 1 && rankTo <= 8 && fileTo >= 1 && fileTo <= 8
-                && board[rankTo][fileTo].getTeamColor() != kingColor) {
-            	if(isKingWhite == whiteToMove) {
-            		// move king to square, then check if it's attacked
-					// needed to prevent king from moving away from attacking piece
-            		Piece oldPiece = board[rankTo][fileTo];
-            		board[rankTo][fileTo] = board[rank][file];
-            		board[rank][file] = new Piece(Piece.EMPTY);
-					if(!isSquareAttacked(board, rankTo, fileTo, whiteToMove, doneMoveStack)) {
-						possibleMoves[rankTo][fileTo] = 1;
-					}
-					board[rank][file] = board[rankTo][fileTo];
-					board[rankTo][fileTo] = oldPiece;
-				}
-            	else
-					possibleMoves[rankTo][fileTo] = 1;
-			}
-        }
-
-        // CASTLING
-		if(!board[rank][file].getHasMoved()) {
-			// Kingside
-			if(		board[rank][file + 1].getType() == Piece.EMPTY &&
-					board[rank][file + 2].getType() == Piece.EMPTY &&
-					(board[rank][file + 3].getType() == Piece.WHITE_ROOK ||
-							board[rank][file + 3].getType() == Piece.BLACK_ROOK) &&
-					board[rank][file + 3].getTeamColor() == kingColor &&
-					!board[rank][file + 3].getHasMoved()) {
-			    if(isKingWhite == whiteToMove) {
-                    if(     !isSquareAttacked(board, rank, file, whiteToMove, doneMoveStack) &&
-                            !isSquareAttacked(board, rank, file + 1, whiteToMove, doneMoveStack) &&
-                            !isSquareAttacked(board, rank, file + 2, whiteToMove, doneMoveStack)) {
-                        possibleMoves[rank][file + 2] = 3;
-                    }
-                } else
-				    possibleMoves[rank][file + 2] = 3;
-			}
-			// Queenside
-			// Kingside
-			if(		board[rank][file - 1].getType() == Piece.EMPTY &&
-					board[rank][file - 2].getType() == Piece.EMPTY &&
-					(board[rank][file - 4].getType() == Piece.WHITE_ROOK ||
-							board[rank][file - 4].getType() == Piece.BLACK_ROOK) &&
-					board[rank][file - 4].getTeamColor() == kingColor &&
-					!board[rank][file - 4].getHasMoved()) {
-			    if(isKingWhite == whiteToMove) {
-			        if(     !isSquareAttacked(board, rank, file, whiteToMove, doneMoveStack) &&
-                            !isSquareAttacked(board, rank, file - 1, whiteToMove, doneMoveStack) &&
-                            !isSquareAttacked(board, rank, file - 2, whiteToMove, doneMoveStack)) {
-			            possibleMoves[rank][file - 2] = 3;
-                    }
-                } else
-				    possibleMoves[rank][file - 2] = 3;
-			}
-		}
+	/**
+	 * Finds possible moves of a queen
+	 * @param position The current position
+	 * @param square The square of the queen
+	 * @return The possible moves of the queen
+	 */
+	static long getQueenMoves(Position position, int square) {
+		return Attacks.queen(square, position.occupied) & ~position.colors[Position.colorOf(position.pieceAt(square))];
+	}
 
-        return possibleMoves;
-    }
+	/**
+	 * Finds possible moves of a king
+	 * Castling is only allowed if the king does not start on, pass through or land on an attacked square
+	 * @param position The current position
+	 * @param square The square of the king
+	 * @return The possible moves of the king
+	 */
+	static long getKingMoves(Position position, int square) {
+		int kingColor = Position.colorOf(position.pieceAt(square));
+		int enemyColor = 3 - kingColor;
+		long possibleMoves = Attacks.KING[square] & ~position.colors[kingColor];
+
+		// CASTLING
+		boolean isKingWhite = kingColor == Piece.WHITE;
+		int home = isKingWhite ? 4 : 60;
+		int kingside = isKingWhite ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+		int queenside = isKingWhite ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+		long rooks = position.pieces[isKingWhite ? Piece.WHITE_ROOK : Piece.BLACK_ROOK];
+		if(square != home || (position.castlingRights & (kingside | queenside)) == 0
+				|| isSquareAttacked(position, home, enemyColor))
+			return possibleMoves;
+		// Kingside
+		if((position.castlingRights & kingside) != 0 &&
+				(rooks & 1L << (home + 3)) != 0 &&
+				(position.occupied & (3L << (home + 1))) == 0 &&
+				!isSquareAttacked(position, home + 1, enemyColor) &&
+				!isSquareAttacked(position, home + 2, enemyColor)) {
+			possibleMoves |= 1L << (home + 2);
+		}
+		// Queenside
+		if((position.castlingRights & queenside) != 0 &&
+				(rooks & 1L << (home - 4)) != 0 &&
+				(position.occupied & (7L << (home - 3))) == 0 &&
+				!isSquareAttacked(position, home - 1, enemyColor) &&
+				!isSquareAttacked(position, home - 2, enemyColor)) {
+			possibleMoves |= 1L << (home - 2);
+		}
+		return possibleMoves;
+	}
 
 	/**
 	 * Checks whether a square is attacked
-	 * @param board The current board state
-	 * @param squareRank The rank of the square to check
-	 * @param squareFile The file of the square to check
-	 * @param whiteToMove Which team moves next
+	 * @param position The current position
+	 * @param square The square to check
+	 * @param byColor The attacking side, <code>Piece.WHITE</code> or <code>Piece.BLACK</code>
 	 * @return Whether the square is attacked
 	 */
-    static boolean isSquareAttacked(Piece[][] board, int squareRank, int squareFile, boolean whiteToMove, ArrayDeque<State> doneMoveStack) {
-    	for(int rank = 1; rank <= 8; rank++) {
-    		for(int file = 1; file <= 8; file++) {
-    			if(board[rank][file].getTeamColor() == Piece.EMPTY)
-    				continue;
-    			boolean pieceColorWhite = (board[rank][file].getTeamColor() == Piece.WHITE);
-    			if(pieceColorWhite != whiteToMove) {
-					int[][] possibleMoves = getPossMoves(board, rank, file, doneMoveStack, whiteToMove);
-					if(possibleMoves[squareRank][squareFile] > 0)
-						return true;
-				}
-			}
-		}
-    	return false;
+	static boolean isSquareAttacked(Position position, int square, int byColor) {
+		long[] pieces = position.pieces;
+		boolean white = byColor == Piece.WHITE;
+		long queens = pieces[white ? Piece.WHITE_QUEEN : Piece.BLACK_QUEEN];
+		// A pawn attacks this square if a pawn of the other color here would attack it
+		return (Attacks.PAWN[3 - byColor][square] & pieces[white ? Piece.WHITE_PAWN : Piece.BLACK_PAWN]) != 0
+				|| (Attacks.KNIGHT[square] & pieces[white ? Piece.WHITE_KNIGHT : Piece.BLACK_KNIGHT]) != 0
+				|| (Attacks.KING[square] & pieces[white ? Piece.WHITE_KING : Piece.BLACK_KING]) != 0
+				|| (Attacks.bishop(square, position.occupied) & (pieces[white ? Piece.WHITE_BISHOP : Piece.BLACK_BISHOP] | queens)) != 0
+				|| (Attacks.rook(square, position.occupied) & (pieces[white ? Piece.WHITE_ROOK : Piece.BLACK_ROOK] | queens)) != 0;
+	}
+
+	/**
+	 * Finds every piece, of either color, that attacks a square
+	 * @param position The current position
+	 * @param square The square to check
+	 * @param occupied The occupancy to use for blocking sliders
+	 * @return The attacking pieces as a mask
+	 */
+	static long attackersTo(Position position, int square, long occupied) {
+		long[] pieces = position.pieces;
+		long bishops = pieces[Piece.WHITE_BISHOP] | pieces[Piece.BLACK_BISHOP] | pieces[Piece.WHITE_QUEEN] | pieces[Piece.BLACK_QUEEN];
+		long rooks = pieces[Piece.WHITE_ROOK] | pieces[Piece.BLACK_ROOK] | pieces[Piece.WHITE_QUEEN] | pieces[Piece.BLACK_QUEEN];
+		return (Attacks.PAWN[Piece.BLACK][square] & pieces[Piece.WHITE_PAWN])
+				| (Attacks.PAWN[Piece.WHITE][square] & pieces[Piece.BLACK_PAWN])
+				| (Attacks.KNIGHT[square] & (pieces[Piece.WHITE_KNIGHT] | pieces[Piece.BLACK_KNIGHT]))
+				| (Attacks.KING[square] & (pieces[Piece.WHITE_KING] | pieces[Piece.BLACK_KING]))
+				| (Attacks.bishop(square, occupied) & bishops)
+				| (Attacks.rook(square, occupied) & rooks);
 	}
 
 	/**
-	 * Determines whether the king is checked after a particular move
-	 * @param boardAfterMove The board after the move
-	 * @param whiteToMove Which team moves next
-	 * @param doneMoveStack All completed moves
+	 * Determines whether a side's king is in check
+	 * @param position The current position
+	 * @param color The side to check, <code>Piece.WHITE</code> or <code>Piece.BLACK</code>
 	 * @return Whether the king is checked
 	 */
-	static boolean isKingCheckedAfterMove(Piece[][] boardAfterMove, boolean whiteToMove, ArrayDeque<State> doneMoveStack) {
-    	boolean kingChecked;
-	    if(whiteToMove) { // is white's king in check after potential white move
-			int kingRank = 0;
-			int kingFile = 0;
-    		for(int rank = 1; rank <= 8; rank++) {
-				for(int file = 1; file <= 8; file++) {
-					if(boardAfterMove[rank][file].getType() == Piece.WHITE_KING) {
-						kingRank = rank;
-						kingFile = file;
-					}
-				}
-			}
-    		kingChecked = isSquareAttacked(boardAfterMove, kingRank, kingFile, whiteToMove, doneMoveStack);
-		} else { // black king
-			int kingRank = 0;
-			int kingFile = 0;
-			for(int rank = 1; rank <= 8; rank++) {
-				for(int file = 1; file <= 8; file++) {
-					if(boardAfterMove[rank][file].getType() == Piece.BLACK_KING) {
-						kingRank = rank;
-						kingFile = file;
-					}
+	static boolean isKingChecked(Position position, int color) {
+		int kingSquare = position.kingSquare(color);
+		return kingSquare != Position.NO_SQUARE && isSquareAttacked(position, kingSquare, 3 - color);
+	}
+
+	/**
+	 * Determines whether a pseudo-legal move leaves the moving side's king safe, without making the move
+	 * @param position The position before the move
+	 * @param move The packed move
+	 * @return Whether the move is legal
+	 */
+	static boolean isLegal(Position position, int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int pieceType = position.pieceAt(from);
+		int color = Position.colorOf(pieceType);
+		long enemies = position.colors[3 - color];
+		long fromBit = 1L << from;
+		long toBit = 1L << to;
+		if(pieceType == Piece.WHITE_KING || pieceType == Piece.BLACK_KING) {
+			// Castling squares were already checked by getKingMoves
+			if(Move.type(move) == CASTLE)
+				return true;
+			return (attackersTo(position, to, position.occupied ^ fromBit) & enemies & ~toBit) == 0;
+		}
+		int kingSquare = position.kingSquare(color);
+		if(kingSquare == Position.NO_SQUARE)
+			return true;
+		long captured = toBit;
+		long occupied = (position.occupied ^ fromBit) | toBit;
+		if(Move.type(move) == EN_PASSANT) {
+			captured = 1L << (color == Piece.WHITE ? to - 8 : to + 8);
+			occupied ^= captured;
+		}
+		return (attackersTo(position, kingSquare, occupied) & enemies & ~captured) == 0;
+	}
+
+	/**
+	 * Works out what a capture wins or loses once both sides have made every capture on its target square they want
+	 * to, each always recapturing with its least valuable piece. Sliders lined up behind the capturers join in as the
+	 * square opens up. Pins are ignored, and the king only recaptures on a square the other side no longer attacks.
+	 * @param position The position before the move
+	 * @param move The packed move; quiet moves are judged by whether the piece can be taken for free
+	 * @param gain Scratch space of at least <code>EXCHANGE_LENGTH</code> entries, overwritten; each searching thread
+	 * keeps its own so nothing is allocated per call
+	 * @return The net material for the side making the move, in centipawns
+	 */
+	static int staticExchange(Position position, int move, int[] gain) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int[] values = Evaluation.PIECE_VALUES;
+		int color = Position.colorOf(position.pieceAt(from));
+		long occupied = position.occupied ^ 1L << from;
+		gain[0] = values[position.pieceAt(to)];
+		int onSquare = values[position.pieceAt(from)];  // value of the piece the next capture would take
+		if(Move.type(move) == EN_PASSANT) {
+			gain[0] = values[Piece.WHITE_PAWN];
+			occupied ^= 1L << (color == Piece.WHITE ? to - 8 : to + 8);
+		} else if(Move.type(move) == PROMOTION) {
+			gain[0] += values[Move.promotion(move)] - values[Piece.WHITE_PAWN];
+			onSquare = values[Move.promotion(move)];
+		}
+		long[] pieces = position.pieces;
+		long diagonal = pieces[Piece.WHITE_BISHOP] | pieces[Piece.BLACK_BISHOP]
+				| pieces[Piece.WHITE_QUEEN] | pieces[Piece.BLACK_QUEEN];
+		long straight = pieces[Piece.WHITE_ROOK] | pieces[Piece.BLACK_ROOK]
+				| pieces[Piece.WHITE_QUEEN] | pieces[Piece.BLACK_QUEEN];
+		long attackers = attackersTo(position, to, occupied) & occupied;
+
+		int depth = 0;
+		int side = 3 - color;
+		while(true) {
+			long sideAttackers = attackers & position.colors[side];
+			if(sideAttackers == 0)
+				break;
+			int firstType = side == Piece.WHITE ? Piece.WHITE_PAWN : Piece.BLACK_PAWN;
+			int type = Piece.EMPTY;
+			long bit = 0;
+			for(int offset : EXCHANGE_ORDER) {
+				bit = sideAttackers & pieces[firstType + offset];
+				if(bit != 0) {
+					type = firstType + offset;
+					break;
 				}
 			}
-			kingChecked = isSquareAttacked(boardAfterMove, kingRank, kingFile, whiteToMove, doneMoveStack);
+			if((type == Piece.WHITE_KING || type == Piece.BLACK_KING) && (attackers & position.colors[3 - side]) != 0)
+				break;
+			depth++;
+			gain[depth] = onSquare - gain[depth - 1];
+			onSquare = values[type];
+			occupied ^= bit & -bit;
+			// Sliders behind the piece that just captured can now see the square
+			attackers |= (Attacks.bishop(to, occupied) & diagonal) | (Attacks.rook(to, occupied) & straight);
+			attackers &= occupied;
+			side = 3 - side;
+		}
+		// Either side can stop capturing when carrying on would lose more
+		while(depth > 0) {
+			gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+			depth--;
 		}
-    	return kingChecked;
+		return gain[0];
+	}
+
+	/**
+	 * Determines whether the side to move has any legal move
+	 * @param position The current position
+	 * @return Whether a legal move exists
+	 */
+	static boolean hasLegalMove(Position position) {
+		return generateLegal(position, null, ALL_MOVES, true) > 0;
+	}
+
+	/**
+	 * Determines whether a move is one <code>generateCaptures</code> would write: a capture, en passant or promotion
+	 * @param position The position before the move
+	 * @param move The packed move
+	 * @return Whether the move is a capture or promotion
+	 */
+	static boolean isCapture(Position position, int move) {
+		return position.pieceAt(Move.to(move)) != Piece.EMPTY || Move.type(move) == EN_PASSANT
+				|| Move.type(move) == PROMOTION;
+	}
+
+	/**
+	 * Determines whether a move from somewhere else, such as the transposition table or a killer slot, is legal
+	 * here. Cheaper than generating every move and searching the list.
+	 * @param position The current position
+	 * @param move The packed move
+	 * @return Whether the move is legal in this position
+	 */
+	static boolean isLegalMove(Position position, int move) {
+		if(move == Move.NONE)
+			return false;
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int pieceType = position.pieceAt(from);
+		if(pieceType == Piece.EMPTY || Position.colorOf(pieceType) != position.sideToMove())
+			return false;
+		if((getMoves(position, from) & 1L << to) == 0 || getMoveType(position, from, to) != Move.type(move))
+			return false;
+		int promotion = Move.promotion(move);
+		if(Move.type(move) == PROMOTION) {
+			if(Position.colorOf(promotion) != position.sideToMove() || promotion == Piece.WHITE_PAWN
+					|| promotion == Piece.BLACK_PAWN || promotion == Piece.WHITE_KING || promotion == Piece.BLACK_KING)
+				return false;
+		} else if(promotion != Piece.EMPTY)
+			return false;
+		return isLegal(position, move);
 	}
 
 	/**
@@ -459,97 +627,98 @@ abstract class MoveRules {
 		for(int rank = 1; rank <= 8; rank++)
 			System.arraycopy(oldBoard[rank], 1, newBoard[rank], 1, 8);
 		newBoard[endRank][endFile] = newBoard[startRank][startFile];
-		newBoard[startRank][startFile] = new Piece(Piece.EMPTY);
+		newBoard[startRank][startFile] = Piece.of(Piece.EMPTY);
 		if(moveType == 2) { // EN PASSANT
 			if(newBoard[endRank][endFile].getTeamColor() == Piece.WHITE) {   // WHITE EN PASSANT
-				newBoard[endRank+1][endFile] = new Piece(Piece.EMPTY);
+				newBoard[endRank+1][endFile] = Piece.of(Piece.EMPTY);
 			} else {                                                // BLACK EN PASSANT
-				newBoard[endRank-1][endFile] = new Piece(Piece.EMPTY);
+				newBoard[endRank-1][endFile] = Piece.of(Piece.EMPTY);
 			}
 		} else if(moveType == 3) { // CASTLING
 			if(endFile > startFile) { // KINGSIDE
 				newBoard[endRank][6] = newBoard[endRank][8];
-				newBoard[endRank][8] = new Piece(Piece.EMPTY);
+				newBoard[endRank][8] = Piece.of(Piece.EMPTY);
 			} else { // QUEENSIDE
 				newBoard[endRank][4] = newBoard[endRank][1];
-				newBoard[endRank][1] = new Piece(Piece.EMPTY);
+				newBoard[endRank][1] = Piece.of(Piece.EMPTY);
 			}
 		}
 
 		return newBoard;
 	}
 
-    /**
-     * Detects whether one side has checkmated
-     * @param board The current board state
-     * @param doneMoveStack All completed moves
-     * @param whiteToMove Which side moves next
-     * @return Whether one side has checkmated
-     */
-	static boolean isCheckmate(Piece[][] board, ArrayDeque<State> doneMoveStack, boolean whiteToMove) {
-	    int sideToMove;
-	    if(whiteToMove)
-	        sideToMove = Piece.WHITE;
-	    else
-	        sideToMove = Piece.BLACK;
-
-        boolean kingAttacked = isKingCheckedAfterMove(board, whiteToMove, doneMoveStack);
-        if(!kingAttacked)
-            return false;
-
-	    // for each piece of the side to move: get its possible moves, and if it has any, it's not checkmate
-	    for(int rank = 1; rank <= 8; rank++) {
-	        for(int file = 1; file <= 8; file++) {
-	            if(board[rank][file].getTeamColor() == sideToMove) {
-	                int[][] possibleMoves = getPossMoves(board, rank, file, doneMoveStack, whiteToMove);
-	                for(int r = 1; r <= 8; r++) {
-	                    for(int f = 1; f <= 8; f++) {
-	                        if(possibleMoves[r][f] > 0) {
-	                            return false;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-	    return true;
-    }
-
-    /**
-     * Detects whether one side has stalemated
-     * @param board The current board state
-     * @param doneMoveStack All completed moves
-     * @param whiteToMove Which side moves next
-     * @return Whether one side has stalemated
-     */
-    static boolean isStalemate(Piece[][] board, ArrayDeque<State> doneMoveStack, boolean whiteToMove) {
-        int sideToMove;
-        if(whiteToMove)
-            sideToMove = Piece.WHITE;
-        else
-            sideToMove = Piece.BLACK;
-
-        boolean kingAttacked = isKingCheckedAfterMove(board, whiteToMove, doneMoveStack);
-        if(kingAttacked)
-            return false;
-
-        // for each piece of the side to move: get its possible moves, and if it has any, it's not checkmate
-        for(int rank = 1; rank <= 8; rank++) {
-            for(int file = 1; file <= 8; file++) {
-                if(board[rank][file].getTeamColor() == sideToMove) {
-                    int[][] possibleMoves = getPossMoves(board, rank, file, doneMoveStack, whiteToMove);
-                    for(int r = 1; r <= 8; r++) {
-                        for(int f = 1; f <= 8; f++) {
-                            if(possibleMoves[r][f] > 0) {
-                                return false;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return true;
-    }
+	/**
+	 * Detects whether the side to move has been checkmated
+	 * @param position The current position
+	 * @return Whether the side to move has been checkmated
+	 */
+	static boolean isCheckmate(Position position) {
+		return isKingChecked(position, position.sideToMove()) && !hasLegalMove(position);
+	}
+
+	/**
+	 * Detects whether the side to move has been stalemated
+	 * @param position The current position
+	 * @return Whether the side to move has been stalemated
+	 */
+	static boolean isStalemate(Position position) {
+		return !isKingChecked(position, position.sideToMove()) && !hasLegalMove(position);
+	}
+
+	/**
+	 * Works out whether the game is over, in one pass: checks the king once, stops at the first legal move, and
+	 * only then looks at the draw rules.
+	 * @param position The current position
+	 * @return <code>PLAYING</code>, the winning color (<code>Piece.WHITE</code> or <code>Piece.BLACK</code>),
+	 * <code>STALEMATE</code>, <code>INSUFFICIENT_MATERIAL</code>, <code>FIFTY_MOVE_RULE</code> or
+	 * <code>THREEFOLD_REPETITION</code>
+	 */
+	static int evaluateGameStatus(Position position) {
+		if(!hasLegalMove(position)) {
+			if(isKingChecked(position, position.sideToMove()))
+				return position.whiteToMove ? Piece.BLACK : Piece.WHITE;
+			return STALEMATE;
+		}
+		if(isInsufficientMaterial(position))
+			return INSUFFICIENT_MATERIAL;
+		if(position.halfmoveClock >= 100)
+			return FIFTY_MOVE_RULE;
+		if(position.isThreefoldRepetition())
+			return THREEFOLD_REPETITION;
+		return PLAYING;
+	}
+
+	/**
+	 * Works out the game status like <code>evaluateGameStatus</code>, but also calls a game still being played a
+	 * draw if the endgame bitbases say neither side can win it
+	 * @param position The current position
+	 * @return What <code>evaluateGameStatus</code> returns, or <code>BITBASE_DRAW</code>
+	 */
+	static int adjudicate(Position position) {
+		int status = evaluateGameStatus(position);
+		if(status != PLAYING)
+			return status;
+		int probe = Bitbase.probe(position);
+		if(probe != Bitbase.NOT_FOUND && Bitbase.result(probe) == Bitbase.DRAW)
+			return BITBASE_DRAW;
+		return PLAYING;
+	}
+
+	/**
+	 * Detects positions where neither side can checkmate: bare kings, a single minor piece, or only bishops that
+	 * all stand on squares of one color
+	 * @param position The current position
+	 * @return Whether there is insufficient material to checkmate
+	 */
+	static boolean isInsufficientMaterial(Position position) {
+		long[] pieces = position.pieces;
+		if((pieces[Piece.WHITE_PAWN] | pieces[Piece.BLACK_PAWN] | pieces[Piece.WHITE_ROOK] | pieces[Piece.BLACK_ROOK]
+				| pieces[Piece.WHITE_QUEEN] | pieces[Piece.BLACK_QUEEN]) != 0)
+			return false;
+		long knights = pieces[Piece.WHITE_KNIGHT] | pieces[Piece.BLACK_KNIGHT];
+		long bishops = pieces[Piece.WHITE_BISHOP] | pieces[Piece.BLACK_BISHOP];
+		if(Long.bitCount(knights | bishops) <= 1)
+			return true;
+		return knights == 0 && ((bishops & DARK_SQUARES) == 0 || (bishops & ~DARK_SQUARES) == 0);
+	}
 }
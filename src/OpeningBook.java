@@ -0,0 +1,261 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * <code>OpeningBook</code> class. Reads opening moves from a book file in the Polyglot <code>.bin</code> layout:
+ * 16-byte big-endian entries of key, move, weight and learn data, sorted by key.
+ * The file is memory-mapped, not read, so even a large book opens at once and costs no heap; a probe binary-searches
+ * the mapping for the position's key and picks one of its moves at random, weighted by the entries' weights.
+ * Positions are looked up by their <code>PolyglotKey</code>, so books made by other Polyglot tools work as they are,
+ * and books built here with <code>main</code> work in them.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+class OpeningBook {
+	// CONSTANTS //
+	static final String DEFAULT_FILE = "book.bin";
+	static final int ENTRY_SIZE = 16;
+	// A single mapping can't pass 2 GB, so larger books are mapped in segments of this many entries
+	static final int SEGMENT_ENTRIES = 1 << 26;
+	static final int DEFAULT_MAX_PLY = 20;
+
+	// FIELDS //
+	FileChannel channel;
+	MappedByteBuffer[] segments;
+	long entryCount;
+	Random random;
+	int[] moveBuffer;
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Opens and maps a book file
+	 * @param path The book file
+	 * @throws IOException If the file can't be opened or mapped
+	 */
+	OpeningBook(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		entryCount = channel.size() / ENTRY_SIZE;
+		segments = new MappedByteBuffer[(int) ((entryCount + SEGMENT_ENTRIES - 1) / SEGMENT_ENTRIES)];
+		for(int i = 0; i < segments.length; i++) {
+			long start = (long) i * SEGMENT_ENTRIES;
+			long entries = Math.min(SEGMENT_ENTRIES, entryCount - start);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start * ENTRY_SIZE, entries * ENTRY_SIZE);
+		}
+		random = new Random();
+		moveBuffer = new int[Move.MAX_MOVES];
+	}
+
+	// METHODS //
+
+	/**
+	 * Opens the book in the working directory, if there is one.
+	 * @return The book, <code>null</code> if there's none or it can't be read
+	 */
+	static OpeningBook openDefault() {
+		Path path = Paths.get(DEFAULT_FILE);
+		if(!Files.isReadable(path))
+			return null;
+		try {
+			return new OpeningBook(path);
+		} catch(IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Picks a book move for a position. Not thread-safe; each thread should use its own book.
+	 * @param position The position to look up
+	 * @return A legal book move, <code>Move.NONE</code> if the position isn't in the book
+	 */
+	int probe(Position position) {
+		long key = PolyglotKey.of(position);
+		// Find the first entry with this key
+		long low = 0;
+		long high = entryCount;
+		while(low < high) {
+			long middle = (low + high) >>> 1;
+			if(Long.compareUnsigned(keyAt(middle), key) < 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		int totalWeight = 0;
+		for(long i = low; i < entryCount && keyAt(i) == key; i++)
+			totalWeight += weightAt(i);
+		if(totalWeight == 0)
+			return Move.NONE;
+
+		int pick = random.nextInt(totalWeight);
+		for(long i = low; ; i++) {
+			pick -= weightAt(i);
+			if(pick < 0)
+				return fromBookMove(position, moveAt(i));
+		}
+	}
+
+	/**
+	 * Unmaps the book.
+	 */
+	void close() {
+		segments = new MappedByteBuffer[0];
+		entryCount = 0;
+		try {
+			channel.close();
+		} catch(IOException ignored) {
+		}
+	}
+
+	/**
+	 * Reads the key of an entry.
+	 */
+	private long keyAt(long index) {
+		return segments[(int) (index / SEGMENT_ENTRIES)].getLong((int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE);
+	}
+
+	/**
+	 * Reads the move of an entry.
+	 */
+	private int moveAt(long index) {
+		return segments[(int) (index / SEGMENT_ENTRIES)].getShort((int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE + 8)
+				& 0xFFFF;
+	}
+
+	/**
+	 * Reads the weight of an entry.
+	 */
+	private int weightAt(long index) {
+		return segments[(int) (index / SEGMENT_ENTRIES)].getShort((int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE + 10)
+				& 0xFFFF;
+	}
+
+	/**
+	 * Finds the legal move matching a book move.
+	 */
+	private int fromBookMove(Position position, int bookMove) {
+		int count = MoveRules.generateLegalMoves(position, moveBuffer);
+		for(int i = 0; i < count; i++) {
+			if(toBookMove(moveBuffer[i]) == bookMove)
+				return moveBuffer[i];
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * Packs a move the Polyglot way: target square in bits 0-5, start square in bits 6-11 (both a1 = 0, like
+	 * <code>Position</code>), promotion piece in bits 12-14 (knight 1 to queen 4). Castling is written as the king
+	 * taking its own rook.
+	 * @param move The packed move
+	 * @return The book move
+	 */
+	static int toBookMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		if(Move.type(move) == MoveRules.CASTLE)
+			to = to > from ? to + 1 : to - 2;
+		int promotion = 0;
+		if(Move.type(move) == MoveRules.PROMOTION) {
+			int piece = Move.promotion(move);
+			if(piece > Piece.WHITE_KING)
+				piece -= 6;
+			promotion = piece == Piece.WHITE_KNIGHT ? 1 : piece == Piece.WHITE_BISHOP ? 2
+					: piece == Piece.WHITE_ROOK ? 3 : 4;
+		}
+		return to | from << 6 | promotion << 12;
+	}
+
+	/**
+	 * Writes a book file from lines of moves. Every position reached in the first <code>maxPly</code> plies of a
+	 * line gets an entry for the move played, weighted by how many lines played it.
+	 * @param lines Lines of moves in coordinate notation from the start position, like "e2e4 e7e5 g1f3"
+	 * @param maxPly How many plies of each line to use
+	 * @param path The file to write
+	 * @return The number of entries written
+	 * @throws IOException If the file can't be written
+	 * @throws IllegalArgumentException If a line has an illegal move
+	 */
+	static int build(Iterable<String> lines, int maxPly, Path path) throws IOException {
+		Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+		Position position = new Position();
+		int[] moves = new int[Move.MAX_MOVES];
+		for(String line : lines) {
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#"))
+				continue;
+			position.setStartPosition();
+			String[] tokens = line.split("\\s+");
+			for(int ply = 0; ply < Math.min(maxPly, tokens.length); ply++) {
+				int move = Move.NONE;
+				int count = MoveRules.generateLegalMoves(position, moves);
+				for(int i = 0; i < count && move == Move.NONE; i++)
+					if(Move.toString(moves[i]).equals(tokens[ply]))
+						move = moves[i];
+				if(move == Move.NONE)
+					throw new IllegalArgumentException("Illegal move " + tokens[ply] + " in line: " + line);
+				counts.computeIfAbsent(PolyglotKey.of(position), k -> new HashMap<>()).merge(toBookMove(move), 1, Integer::sum);
+				position.makeMove(move);
+			}
+		}
+
+		// Sorted by key as unsigned, then by weight, heaviest first
+		List<long[]> entries = new ArrayList<>();
+		for(Map.Entry<Long, Map<Integer, Integer>> node : counts.entrySet())
+			for(Map.Entry<Integer, Integer> move : node.getValue().entrySet())
+				entries.add(new long[] {node.getKey(), move.getKey(), Math.min(move.getValue(), 0xFFFF)});
+		entries.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+		ByteBuffer buffer = ByteBuffer.allocate(entries.size() * ENTRY_SIZE);
+		for(long[] entry : entries) {
+			buffer.putLong(entry[0]);
+			buffer.putShort((short) entry[1]);
+			buffer.putShort((short) entry[2]);
+			buffer.putInt(0);
+		}
+		buffer.flip();
+		try(FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(buffer.hasRemaining())
+				out.write(buffer);
+		}
+		return entries.size();
+	}
+
+	/**
+	 * Builds a book file from a text file of move lines.
+	 * @param args The text file, the book file to write (default <code>book.bin</code>), and how many plies of each
+	 * line to use (default 20)
+	 * @throws IOException If a file can't be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			System.out.println("Usage: OpeningBook <lines.txt> [book.bin] [max ply]");
+			return;
+		}
+		List<String> lines = new ArrayList<>();
+		try(BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]))) {
+			String line;
+			while((line = reader.readLine()) != null)
+				lines.add(line);
+		}
+		Path path = Paths.get(args.length > 1 ? args[1] : DEFAULT_FILE);
+		int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+		long start = System.nanoTime();
+		int entries = build(lines, maxPly, path);
+		System.out.println(String.format("%,d entries from %,d lines written to %s in %d ms", entries, lines.size(),
+				path, (System.nanoTime() - start) / 1000000));
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * <code>Perft</code> class. Counts the leaf nodes of the move tree to a fixed depth, to check <code>MoveRules</code>
+ * against known results.
+ * Run without arguments to check the built-in suite, or with a FEN string and a depth to print a per-move breakdown.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+abstract class Perft {
+	// CONSTANTS //
+	// {name, FEN, depth, expected leaf count}
+	static final String[][] SUITE = {
+			{"Start position", Position.START_FEN, "5", "4865609"},
+			{"Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603"},
+			{"Rook endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "5", "674624"},
+			{"Promotions", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4", "422333"},
+			{"Discovered checks", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487"},
+			{"Middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594"},
+			{"Illegal en passant 1", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", "6", "1134888"},
+			{"Illegal en passant 2", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", "6", "1015133"},
+			{"Pinned en passant", "8/5bk1/8/2Pp4/8/1K6/8/8 w - d6 0 1", "6", "824064"},
+			{"En passant gives check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", "6", "1440467"},
+			{"Short castle gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", "6", "661072"},
+			{"Long castle gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", "6", "803711"},
+			{"Castling rights", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", "4", "1274206"},
+			{"Castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", "4", "1720476"},
+			{"Promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", "6", "3821001"},
+			{"Discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", "5", "1004658"},
+			{"Promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", "6", "217342"},
+			{"Underpromote to check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", "6", "92683"},
+			{"Self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", "6", "2217"},
+			{"Stalemate and checkmate 1", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", "7", "567584"},
+			{"Stalemate and checkmate 2", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", "4", "23527"}
+	};
+
+	// METHODS //
+
+	/**
+	 * Counts the leaf nodes below a position
+	 * @param position The position to start from; it is restored before returning
+	 * @param depth How many plies to search
+	 * @return The number of leaf nodes
+	 */
+	static long perft(Position position, int depth) {
+		return perft(position, depth, new int[depth + 1][Move.MAX_MOVES]);
+	}
+
+	/**
+	 * Counts the leaf nodes below a position, with one move buffer per remaining depth
+	 */
+	private static long perft(Position position, int depth, int[][] buffers) {
+		if(depth == 0)
+			return 1;
+		int[] moves = buffers[depth];
+		int count = MoveRules.generateLegalMoves(position, moves);
+		if(depth == 1) // Bulk counting: the moves themselves are the leaves
+			return count;
+		long nodes = 0;
+		for(int i = 0; i < count; i++) {
+			long undo = position.makeMove(moves[i]);
+			nodes += perft(position, depth - 1, buffers);
+			position.unmakeMove(moves[i], undo);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Prints the leaf count below each root move, then the total
+	 * @param position The position to start from
+	 * @param depth How many plies to search
+	 * @return The total number of leaf nodes
+	 */
+	static long divide(Position position, int depth) {
+		int[] moves = new int[Move.MAX_MOVES];
+		int[][] buffers = new int[depth][Move.MAX_MOVES];
+		int count = MoveRules.generateLegalMoves(position, moves);
+		long total = 0;
+		for(int i = 0; i < count; i++) {
+			long undo = position.makeMove(moves[i]);
+			long nodes = perft(position, depth - 1, buffers);
+			position.unmakeMove(moves[i], undo);
+			System.out.println(Move.toString(moves[i]) + ": " + nodes);
+			total += nodes;
+		}
+		System.out.println();
+		System.out.println("Moves: " + count);
+		System.out.println("Nodes: " + total);
+		return total;
+	}
+
+	/**
+	 * Runs the suite, or divides one position.
+	 * @param args Nothing, or a FEN string followed by a depth
+	 */
+	public static void main(String[] args) {
+		if(args.length >= 2) {
+			StringBuilder fen = new StringBuilder();
+			for(int i = 0; i < args.length - 1; i++)
+				fen.append(args[i]).append(' ');
+			divide(Position.fromFen(fen.toString()), Integer.parseInt(args[args.length - 1]));
+			return;
+		}
+
+		int failures = 0;
+		long totalNodes = 0;
+		long totalTime = 0;
+		for(String[] test : SUITE) {
+			int depth = Integer.parseInt(test[2]);
+			long expected = Long.parseLong(test[3]);
+			long start = System.nanoTime();
+			long nodes = perft(Position.fromFen(test[1]), depth);
+			long time = System.nanoTime() - start;
+			totalNodes += nodes;
+			totalTime += time;
+			boolean passed = nodes == expected;
+			if(!passed)
+				failures++;
+			System.out.println(String.format("%-4s %-26s depth %d: %,12d nodes in %6d ms%s",
+					passed ? "OK" : "FAIL", test[0], depth, nodes, time / 1000000,
+					passed ? "" : String.format(" (expected %,d)", expected)));
+		}
+		System.out.println(String.format("%d/%d passed, %,.0f nodes/sec", SUITE.length - failures, SUITE.length,
+				totalNodes * 1e9 / totalTime));
+		if(failures > 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,69 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <code>PgnGame</code> class. One game read from a PGN file: its tags, result and moves, as packed moves from its
+ * start position.
+ * A move that can't be read, being illegal, ambiguous or garbled, ends the moves there; the reason is kept in
+ * <code>error</code> and the rest of the game's moves are skipped.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+class PgnGame {
+	// CONSTANTS //
+	static final String UNKNOWN_RESULT = "*";
+
+	// FIELDS //
+	int number;                 // 1 for the first game in the file
+	Map<String, String> tags;   // in file order
+	String result;              // from the movetext: "1-0", "0-1", "1/2-1/2" or "*"
+	int[] moves;
+	int moveCount;
+	String error;               // why the moves stop early, null if they don't
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates an empty game.
+	 * @param number Where the game comes in its file, from 1
+	 */
+	PgnGame(int number) {
+		this.number = number;
+		tags = new LinkedHashMap<>();
+		result = UNKNOWN_RESULT;
+		moves = new int[128];
+	}
+
+	// METHODS //
+
+	/**
+	 * Adds a move to the end of the game.
+	 */
+	void addMove(int move) {
+		if(moveCount == moves.length)
+			moves = Arrays.copyOf(moves, moveCount * 2);
+		moves[moveCount++] = move;
+	}
+
+	/**
+	 * Gets a tag's value.
+	 * @param name The tag, like "White"
+	 * @return The value, <code>null</code> if the game doesn't have the tag
+	 */
+	String tag(String name) {
+		return tags.get(name);
+	}
+
+	/**
+	 * Builds the position the game starts from: the one in its FEN tag, or the standard start.
+	 * @return A new position
+	 * @throws IllegalArgumentException If the FEN tag isn't valid FEN
+	 */
+	Position startPosition() {
+		String fen = tags.get("FEN");
+		return Position.fromFen(fen == null ? Position.START_FEN : fen);
+	}
+}
@@ -0,0 +1,314 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <code>PgnReader</code> class. Reads games from PGN text one at a time, as an iterator or a stream, so files of any
+ * size can be processed in a fixed amount of memory: only a read buffer and the current game are held.
+ * Moves are checked against <code>MoveRules</code> as they are read. Comments, variations, numeric annotations and
+ * move numbers are skipped; a game without a result ends where the next game's tags begin.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+class PgnReader implements Iterator<PgnGame>, Closeable {
+	// CONSTANTS //
+	static final int BUFFER_SIZE = 1 << 16;
+	private static final String TOKEN_ENDS = "{}()[];";
+
+	// FIELDS //
+	Reader input;
+	char[] buffer;
+	int bufferLength;
+	int bufferIndex;
+	long charsRead;
+	int pushedBack;         // a character read too far, -1 if none
+	StringBuilder token;
+	Position position;
+	int[] moveBuffer;
+	int gameCount;
+	PgnGame next;           // read ahead for hasNext, null if not yet read
+	boolean finished;
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates a reader of PGN text.
+	 * @param input The text; wrapping it in a buffer isn't needed
+	 */
+	PgnReader(Reader input) {
+		this.input = input;
+		buffer = new char[BUFFER_SIZE];
+		pushedBack = -1;
+		token = new StringBuilder(256);
+		position = new Position();
+		moveBuffer = new int[Move.MAX_MOVES];
+	}
+
+	// METHODS //
+
+	/**
+	 * Checks whether there is another game.
+	 * @throws UncheckedIOException If the text can't be read
+	 */
+	@Override
+	public boolean hasNext() {
+		if(next == null && !finished) {
+			try {
+				next = readGame();
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			finished = next == null;
+		}
+		return next != null;
+	}
+
+	/**
+	 * Reads the next game.
+	 * @throws NoSuchElementException If there are no more games
+	 * @throws UncheckedIOException If the text can't be read
+	 */
+	@Override
+	public PgnGame next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+		PgnGame game = next;
+		next = null;
+		return game;
+	}
+
+	/**
+	 * Gets the games as a sequential stream, read as they are consumed.
+	 * @return The stream
+	 */
+	Stream<PgnGame> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Gets how much text has been read so far.
+	 * @return The number of characters
+	 */
+	long charsRead() {
+		return charsRead;
+	}
+
+	/**
+	 * Closes the text.
+	 * @throws IOException If closing fails
+	 */
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+
+	/**
+	 * Reads one game.
+	 * @return The game, <code>null</code> at the end of the text
+	 */
+	private PgnGame readGame() throws IOException {
+		PgnGame game = null;
+		boolean inMoves = false;
+		while(true) {
+			int c = read();
+			if(c < 0)
+				return game;
+			if(Character.isWhitespace(c))
+				continue;
+			switch(c) {
+				case '[':
+					if(inMoves) {
+						pushedBack = c;
+						return game;
+					}
+					if(game == null)
+						game = new PgnGame(++gameCount);
+					readTag(game);
+					break;
+				case '{':
+					skipPast('}');
+					break;
+				case ';':
+				case '%':
+					skipPast('\n');
+					break;
+				case '(':
+					skipVariation();
+					break;
+				case ')':
+				case ']':
+				case '}':
+					break;
+				default:
+					readToken(c);
+					if(c == '$')
+						break; // A numeric annotation
+					if(game == null)
+						game = new PgnGame(++gameCount);
+					if(!inMoves) {
+						inMoves = true;
+						startMoves(game);
+					}
+					if(isResult(token)) {
+						game.result = token.toString();
+						return game;
+					}
+					readMove(game);
+			}
+		}
+	}
+
+	/**
+	 * Reads a tag pair, after its opening bracket.
+	 */
+	private void readTag(PgnGame game) throws IOException {
+		token.setLength(0);
+		int c = read();
+		while(c >= 0 && Character.isWhitespace(c))
+			c = read();
+		for(; c >= 0 && !Character.isWhitespace(c) && c != '"' && c != ']'; c = read())
+			token.append((char) c);
+		String name = token.toString();
+		while(c >= 0 && c != '"' && c != ']')
+			c = read();
+		token.setLength(0);
+		if(c == '"') {
+			for(c = read(); c >= 0 && c != '"'; c = read()) {
+				if(c == '\\')
+					c = read();
+				if(c >= 0)
+					token.append((char) c);
+			}
+			skipPast(']');
+		}
+		game.tags.put(name, token.toString());
+	}
+
+	/**
+	 * Sets up the start position, once the tags are all read.
+	 */
+	private void startMoves(PgnGame game) {
+		String fen = game.tag("FEN");
+		try {
+			Fen.parse(fen == null ? Position.START_FEN : fen, position);
+		} catch(IllegalArgumentException e) {
+			game.error = e.getMessage();
+		}
+	}
+
+	/**
+	 * Plays the move in <code>token</code>, after any move number in front of it.
+	 */
+	private void readMove(PgnGame game) {
+		if(game.error != null)
+			return;
+		// Move numbers may be written apart, "12." or "12...", or stuck to the move, "12.e4"
+		int start = 0;
+		while(start < token.length() && token.charAt(start) >= '0' && token.charAt(start) <= '9')
+			start++;
+		if(start < token.length() && token.charAt(start) == '.') {
+			while(start < token.length() && token.charAt(start) == '.')
+				start++;
+		} else
+			start = 0;
+		if(start == token.length())
+			return;
+		int move = San.parse(position, token, start, token.length(), moveBuffer);
+		if(move == Move.NONE) {
+			game.error = "Illegal move " + token.substring(start) + " at ply " + (game.moveCount + 1);
+			return;
+		}
+		game.addMove(move);
+		position.makeMove(move);
+	}
+
+	/**
+	 * Reads a token into <code>token</code>, up to whitespace or a character that starts something else.
+	 * @param first The token's first character, already read
+	 */
+	private void readToken(int first) throws IOException {
+		token.setLength(0);
+		token.append((char) first);
+		int c;
+		while((c = read()) >= 0 && !Character.isWhitespace(c)) {
+			if(TOKEN_ENDS.indexOf(c) >= 0) {
+				pushedBack = c;
+				break;
+			}
+			token.append((char) c);
+		}
+	}
+
+	/**
+	 * Checks whether a token is a game result.
+	 */
+	private static boolean isResult(CharSequence token) {
+		int length = token.length();
+		if(length == 1)
+			return token.charAt(0) == '*';
+		if(length == 3) // Careful: "0-0" is castling
+			return token.charAt(1) == '-' && ((token.charAt(0) == '1' && token.charAt(2) == '0')
+					|| (token.charAt(0) == '0' && token.charAt(2) == '1'));
+		return length == 7 && token.charAt(0) == '1' && token.charAt(1) == '/' && token.charAt(3) == '-';
+	}
+
+	/**
+	 * Skips a variation, after its opening parenthesis, along with any variations and comments inside it.
+	 */
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		int c;
+		while(depth > 0 && (c = read()) >= 0) {
+			if(c == '(')
+				depth++;
+			else if(c == ')')
+				depth--;
+			else if(c == '{')
+				skipPast('}');
+			else if(c == ';')
+				skipPast('\n');
+		}
+	}
+
+	/**
+	 * Skips up to and including a character.
+	 */
+	private void skipPast(char end) throws IOException {
+		int c;
+		do {
+			c = read();
+		} while(c >= 0 && c != end);
+	}
+
+	/**
+	 * Reads one character.
+	 * @return The character, -1 at the end of the text
+	 */
+	private int read() throws IOException {
+		if(pushedBack >= 0) {
+			int c = pushedBack;
+			pushedBack = -1;
+			return c;
+		}
+		if(bufferIndex == bufferLength) {
+			bufferLength = input.read(buffer, 0, buffer.length);
+			bufferIndex = 0;
+			if(bufferLength <= 0) {
+				bufferLength = 0;
+				return -1;
+			}
+			charsRead += bufferLength;
+		}
+		return buffer[bufferIndex++];
+	}
+}
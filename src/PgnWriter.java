@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <code>PgnWriter</code> class. This is not instantiated, only writing games as PGN: tags, then the moves in SAN
+ * with move numbers, wrapped to keep lines under 80 characters, then the result.
+ * Games on the board are written from <code>BoardPanel</code>'s <code>doneMoveStack</code>; the start position is
+ * found by taking those moves back, so a game set up from FEN is written with its FEN tag.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+abstract class PgnWriter {
+	// CONSTANTS //
+	static final int LINE_LENGTH = 79;
+
+	// METHODS //
+
+	/**
+	 * Writes one game
+	 * @param out Where to write
+	 * @param tags The tags, written in order; a FEN tag should be among them if the game doesn't start from the
+	 * standard position
+	 * @param start The position the game starts from
+	 * @param moves The moves
+	 * @param moveCount How many of <code>moves</code> to write
+	 * @param result The result: "1-0", "0-1", "1/2-1/2" or "*"
+	 * @throws IOException If writing fails
+	 */
+	static void write(Appendable out, Map<String, String> tags, Position start, int[] moves, int moveCount,
+			String result) throws IOException {
+		for(Map.Entry<String, String> tag : tags.entrySet()) {
+			out.append('[').append(tag.getKey()).append(" \"");
+			out.append(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+		}
+		out.append('\n');
+
+		Position position = new Position(start);
+		int[] moveBuffer = new int[Move.MAX_MOVES];
+		StringBuilder line = new StringBuilder(LINE_LENGTH + 20);
+		StringBuilder word = new StringBuilder(16);
+		for(int i = 0; i < moveCount; i++) {
+			word.setLength(0);
+			if(position.whiteToMove)
+				word.append(position.fullmoveNumber).append(". ");
+			else if(i == 0)
+				word.append(position.fullmoveNumber).append("... ");
+			San.write(position, moves[i], moveBuffer, word);
+			position.makeMove(moves[i]);
+			appendWord(out, line, word);
+		}
+		word.setLength(0);
+		word.append(result);
+		appendWord(out, line, word);
+		out.append(line).append("\n\n");
+	}
+
+	/**
+	 * Writes a game read from PGN, as far as its moves could be read.
+	 * @param out Where to write
+	 * @param game The game
+	 * @throws IOException If writing fails
+	 */
+	static void write(Appendable out, PgnGame game) throws IOException {
+		write(out, game.tags, game.startPosition(), game.moves, game.moveCount, game.result);
+	}
+
+	/**
+	 * Writes the game played so far on a board. Tags that aren't known are written as "?"
+	 * @param out Where to write
+	 * @param current The board's position
+	 * @param doneMoveStack The moves played, most recent first
+	 * @param white The white player's name
+	 * @param black The black player's name
+	 * @throws IOException If writing fails
+	 */
+	static void write(Appendable out, Position current, ArrayDeque<State> doneMoveStack, String white, String black)
+			throws IOException {
+		// Take the moves back to find where the game started
+		Position start = new Position(current);
+		int[] moves = new int[doneMoveStack.size()];
+		int index = moves.length;
+		for(State state : doneMoveStack) {
+			moves[--index] = state.getMove();
+			start.unmakeMove(state.getMove(), state.getUndo());
+		}
+		String result = result(MoveRules.evaluateGameStatus(current));
+
+		Map<String, String> tags = gameTags(white, black, result);
+		String fen = start.toFen();
+		if(!fen.equals(Position.START_FEN)) {
+			tags.put("SetUp", "1");
+			tags.put("FEN", fen);
+		}
+		write(out, tags, start, moves, moves.length, result);
+	}
+
+	/**
+	 * Makes the standard tags for a game played on the board, dated today.
+	 * @param white The white player's name
+	 * @param black The black player's name
+	 * @param result The result
+	 * @return The tags, in the order PGN lists them
+	 */
+	static Map<String, String> gameTags(String white, String black, String result) {
+		Map<String, String> tags = new LinkedHashMap<>();
+		tags.put("Event", "Casual game");
+		tags.put("Site", "JChess");
+		tags.put("Date", new SimpleDateFormat("yyyy.MM.dd").format(new Date()));
+		tags.put("Round", "-");
+		tags.put("White", white);
+		tags.put("Black", black);
+		tags.put("Result", result);
+		return tags;
+	}
+
+	/**
+	 * Writes a game status as a PGN result
+	 * @param status A status from <code>MoveRules.evaluateGameStatus</code>
+	 * @return "1-0", "0-1", "1/2-1/2", or "*" while the game goes on
+	 */
+	static String result(int status) {
+		if(status == Piece.WHITE)
+			return "1-0";
+		if(status == Piece.BLACK)
+			return "0-1";
+		if(status < 0)
+			return "1/2-1/2";
+		return PgnGame.UNKNOWN_RESULT;
+	}
+
+	/**
+	 * Adds a word to the line being built, first writing the line out if the word won't fit.
+	 */
+	private static void appendWord(Appendable out, StringBuilder line, CharSequence word) throws IOException {
+		if(line.length() > 0 && line.length() + 1 + word.length() > LINE_LENGTH) {
+			out.append(line).append('\n');
+			line.setLength(0);
+		}
+		if(line.length() > 0)
+			line.append(' ');
+		line.append(word);
+	}
+}
@@ -6,7 +6,7 @@ import java.io.*;
  * <code>Piece</code> class. Types of pieces and their possible doneMoveStack.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.10
+ * @version 0.9.11
  * @since 4 APR 2020
  */
 class Piece {
@@ -55,17 +55,23 @@ class Piece {
 	static BufferedImage[] labels;
 	
 	// FIELDS //
-	private int teamColor;
-	private int type;
-	private boolean hasMoved;
+	private final int teamColor;
+	private final int type;
+	
+	// One shared instance per type, labels included; pieces are immutable so the grid can hold the same object twice
+	private static final Piece[] INSTANCES = new Piece[LABEL_H+1];
+	static {
+		for(int type = EMPTY; type <= LABEL_H; type++)
+			INSTANCES[type] = new Piece(type);
+	}
 	
 	// CONSTRUCTORS //
 	
 	/**
-	 * Creates a new <code>Piece</code> instance based on piece type.
+	 * Creates a new <code>Piece</code> instance based on piece type. Only used to fill <code>INSTANCES</code>.
 	 * @param type The type <code>Pice</code> to make
 	 */
-	Piece(int type) {
+	private Piece(int type) {
 		this.type = type;
 		if(type == 0)
 			this.teamColor = EMPTY;
@@ -73,17 +79,19 @@ class Piece {
 			this.teamColor = WHITE;
 		else
 			this.teamColor = BLACK;
-		this.hasMoved = false;
-	}
-
-	Piece(Piece piece) {
-		this.type = piece.type;
-		this.teamColor = piece.teamColor;
-		this.hasMoved = piece.hasMoved;
 	}
 	
 	// METHODS //
 	
+	/**
+	 * Gets the shared <code>Piece</code> of a type.
+	 * @param type The type constant, piece or label
+	 * @return The shared instance
+	 */
+	static Piece of(int type) {
+		return INSTANCES[type];
+	}
+	
 	/**
 	 * Loads images into the arrays.
 	 */
@@ -119,21 +127,6 @@ class Piece {
 		}
 	}
 	
-	/**
-	 * Say this piece has moved.
-	 */
-	void setHasMoved() {
-		this.hasMoved = true;
-	}
-	
-	/**
-	 * Get whether this piece has moved.
-	 * @return <code>true</code> if it has; <code>false</code> if it hasn't.
-	 */
-	boolean getHasMoved() {
-		return this.hasMoved;
-	}
-	
 	/**
 	 * Get the team color for this piece.
 	 * @return <code>Piece.WHITE</code> or <code>Piece.BLACK</code>, depending on the team color.
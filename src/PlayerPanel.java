@@ -1,14 +1,17 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 
 /**
- * <code>PlayerPanel</code> class. This displays information about a specific player.
+ * <code>PlayerPanel</code> class. This displays information about a specific player,
+ * and lets the computer take over that player's side.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.4
+ * @version 0.9.5
  * @since 4 APR 2020
  */
-public class PlayerPanel extends JPanel {
+public class PlayerPanel extends JPanel implements ActionListener {
 	// FIELDS //
 	int width, height;
 	boolean isWhite;
@@ -16,6 +19,8 @@ public class PlayerPanel extends JPanel {
 	final float BACKGROUND_ALPHA = 0.5f;
 	int BACKGROUND_RGBA;
 	Color BACKGROUND_COLOR;
+	BoardPanel boardPanel;
+	JCheckBox computerCheckBox;
 	final RenderingHints RENDERING_HINTS = new RenderingHints(
 			RenderingHints.KEY_ANTIALIASING,
 			RenderingHints.VALUE_ANTIALIAS_ON
@@ -26,10 +31,12 @@ public class PlayerPanel extends JPanel {
 	/**
 	 * Creates a <code>PlayerPanel</code> based on color.
 	 * @param isWhite The color to use.
+	 * @param boardPanel The <code>BoardPanel</code> instance from <code>Frame</code>.
 	 */
-	PlayerPanel(boolean isWhite) {
+	PlayerPanel(boolean isWhite, BoardPanel boardPanel) {
 		this.setOpaque(false);
 		this.isWhite = isWhite;
+		this.boardPanel = boardPanel;
 		if(isWhite) {
 			BACKGROUND_OPAQUE   = Color.HSBtoRGB(0, 0, 1);
 		} else {
@@ -37,6 +44,12 @@ public class PlayerPanel extends JPanel {
 		}
 		BACKGROUND_RGBA     = (BACKGROUND_OPAQUE & 16777215) | ((int) (BACKGROUND_ALPHA*255) << 24);
 		BACKGROUND_COLOR    = new Color(BACKGROUND_RGBA, true);
+		
+		computerCheckBox = new JCheckBox("Computer");
+		computerCheckBox.setOpaque(false);
+		computerCheckBox.setForeground(isWhite ? Color.BLACK : Color.WHITE);
+		computerCheckBox.addActionListener(this);
+		this.add(computerCheckBox);
 	}
 	
 	// METHODS //
@@ -65,4 +78,14 @@ public class PlayerPanel extends JPanel {
 		graphics2d.setColor(BACKGROUND_COLOR);
 		graphics2d.fillRect(0, 0, width, height);
 	}
+	
+	/**
+	 * Hands this player's side to the computer, or back to the user.
+	 * @param e The <code>ActionEvent</code> passed from the event thread.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		boardPanel.setComputerPlays(isWhite ? Piece.WHITE : Piece.BLACK, computerCheckBox.isSelected());
+		boardPanel.repaint();
+	}
 }
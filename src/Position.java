@@ -0,0 +1,483 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * <code>Position</code> class. Bitboard representation of the board, used natively by <code>MoveRules</code>.
+ * Squares are numbered 0 (a1) to 63 (h8), rank by rank; bit <code>n</code> of a mask stands for square <code>n</code>.
+ * Use <code>fromGrid</code> and <code>toGrid</code> to convert to and from the 10x10 grid in <code>BoardPanel</code>.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.8
+ * @since 18 OCT 2026
+ */
+class Position {
+	// CONSTANTS //
+	static final int NO_SQUARE = -1;
+	static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	// FEN letter of each piece type, indexed by the Piece constants
+	static final String PIECE_LETTERS = " PBNRQKpbnrqk";
+
+	// Castling rights, stored as bits of castlingRights
+	static final int WHITE_KINGSIDE  = 1;
+	static final int WHITE_QUEENSIDE = 2;
+	static final int BLACK_KINGSIDE  = 4;
+	static final int BLACK_QUEENSIDE = 8;
+	static final int ALL_CASTLING    = 15;
+
+	static final long FILE_A = 0x0101010101010101L;
+	static final long FILE_B = FILE_A << 1;
+	static final long FILE_G = FILE_A << 6;
+	static final long FILE_H = FILE_A << 7;
+	static final long RANK_1 = 0xFFL;
+	static final long RANK_2 = RANK_1 << 8;
+	static final long RANK_4 = RANK_1 << 24;
+	static final long RANK_5 = RANK_1 << 32;
+	static final long RANK_7 = RANK_1 << 48;
+	static final long RANK_8 = RANK_1 << 56;
+
+	// Castling rights kept after a move touches each square
+	static final int[] CASTLING_MASK = new int[64];
+	static {
+		for(int square = 0; square < 64; square++)
+			CASTLING_MASK[square] = ALL_CASTLING;
+		CASTLING_MASK[0]  &= ~WHITE_QUEENSIDE;
+		CASTLING_MASK[4]  &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+		CASTLING_MASK[7]  &= ~WHITE_KINGSIDE;
+		CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+		CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+		CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+	}
+
+	// FIELDS //
+	long[] pieces;      // one mask per piece type, indexed by the Piece constants
+	long[] colors;      // one mask per side, indexed by Piece.WHITE and Piece.BLACK
+	long occupied;
+	int[] board;        // piece type on each square, Piece.EMPTY if none
+	// Squares of each side's pieces in no particular order, 1st index -> Piece.WHITE or Piece.BLACK
+	int[][] pieceList;
+	int[] pieceCount;
+	int[] listIndex;    // where the piece on each square sits in its side's list
+	int[] kingSquares;  // indexed by color, NO_SQUARE if that side has no king
+	boolean whiteToMove;
+	int castlingRights;
+	int enPassantSquare; // square a pawn can capture onto en passant, NO_SQUARE if none
+	int halfmoveClock;
+	int fullmoveNumber;
+	long key;            // Zobrist key, updated with every change
+	// Evaluation sums, updated with every change (see Evaluation)
+	int middlegameScore; // material plus piece-square bonuses, white minus black
+	int endgameScore;
+	int phase;           // 0 with only kings and pawns, Evaluation.TOTAL_PHASE with every piece on
+	long[] keyHistory;   // key before each move made, oldest first
+	int historyLength;
+
+	// CONSTRUCTORS //
+
+	/**
+	 * Creates an empty <code>Position</code> with white to move.
+	 */
+	Position() {
+		pieces = new long[Piece.BLACK_KING+1];
+		colors = new long[3];
+		board = new int[64];
+		pieceList = new int[3][32];
+		pieceCount = new int[3];
+		listIndex = new int[64];
+		kingSquares = new int[] {NO_SQUARE, NO_SQUARE, NO_SQUARE};
+		keyHistory = new long[256];
+		whiteToMove = true;
+		enPassantSquare = NO_SQUARE;
+		fullmoveNumber = 1;
+	}
+
+	/**
+	 * Creates a copy of another <code>Position</code>.
+	 * @param other The position to copy
+	 */
+	Position(Position other) {
+		this();
+		copyFrom(other);
+	}
+
+	// METHODS //
+
+	/**
+	 * Overwrites this position with another one without allocating.
+	 * @param other The position to copy
+	 */
+	void copyFrom(Position other) {
+		System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+		System.arraycopy(other.colors, 0, colors, 0, colors.length);
+		System.arraycopy(other.board, 0, board, 0, board.length);
+		for(int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+			System.arraycopy(other.pieceList[color], 0, pieceList[color], 0, other.pieceCount[color]);
+			pieceCount[color] = other.pieceCount[color];
+			kingSquares[color] = other.kingSquares[color];
+		}
+		System.arraycopy(other.listIndex, 0, listIndex, 0, listIndex.length);
+		occupied = other.occupied;
+		whiteToMove = other.whiteToMove;
+		castlingRights = other.castlingRights;
+		enPassantSquare = other.enPassantSquare;
+		halfmoveClock = other.halfmoveClock;
+		fullmoveNumber = other.fullmoveNumber;
+		key = other.key;
+		middlegameScore = other.middlegameScore;
+		endgameScore = other.endgameScore;
+		phase = other.phase;
+		if(keyHistory.length < other.historyLength)
+			keyHistory = new long[other.keyHistory.length];
+		System.arraycopy(other.keyHistory, 0, keyHistory, 0, other.historyLength);
+		historyLength = other.historyLength;
+	}
+
+	/**
+	 * Removes every piece and resets the rules state.
+	 */
+	void clear() {
+		for(int i = 0; i < pieces.length; i++)
+			pieces[i] = 0;
+		colors[Piece.WHITE] = colors[Piece.BLACK] = 0;
+		occupied = 0;
+		for(int square = 0; square < 64; square++)
+			board[square] = Piece.EMPTY;
+		pieceCount[Piece.WHITE] = pieceCount[Piece.BLACK] = 0;
+		kingSquares[Piece.WHITE] = kingSquares[Piece.BLACK] = NO_SQUARE;
+		whiteToMove = true;
+		castlingRights = 0;
+		enPassantSquare = NO_SQUARE;
+		halfmoveClock = 0;
+		fullmoveNumber = 1;
+		key = 0;
+		middlegameScore = endgameScore = phase = 0;
+		historyLength = 0;
+	}
+
+	/**
+	 * Sets this position to the standard starting position.
+	 */
+	void setStartPosition() {
+		clear();
+		int[] backRank = {Piece.WHITE_ROOK, Piece.WHITE_KNIGHT, Piece.WHITE_BISHOP, Piece.WHITE_QUEEN,
+				Piece.WHITE_KING, Piece.WHITE_BISHOP, Piece.WHITE_KNIGHT, Piece.WHITE_ROOK};
+		for(int file = 0; file < 8; file++) {
+			putPiece(file, backRank[file]);
+			putPiece(8 + file, Piece.WHITE_PAWN);
+			putPiece(48 + file, Piece.BLACK_PAWN);
+			putPiece(56 + file, backRank[file] + 6);
+		}
+		castlingRights = ALL_CASTLING;
+		key = Zobrist.computeKey(this);
+	}
+
+	/**
+	 * Places a piece on an empty square.
+	 * @param square The square to use
+	 * @param type The <code>Piece</code> type constant
+	 */
+	void putPiece(int square, int type) {
+		long bit = 1L << square;
+		int color = colorOf(type);
+		pieces[type] |= bit;
+		colors[color] |= bit;
+		occupied |= bit;
+		board[square] = type;
+		key ^= Zobrist.PIECES[type][square];
+		middlegameScore += Evaluation.MIDDLEGAME[type][square];
+		endgameScore += Evaluation.ENDGAME[type][square];
+		phase += Evaluation.PHASE_WEIGHTS[type];
+		listIndex[square] = pieceCount[color];
+		pieceList[color][pieceCount[color]++] = square;
+		if(type == Piece.WHITE_KING || type == Piece.BLACK_KING)
+			kingSquares[color] = square;
+	}
+
+	/**
+	 * Removes the piece on a square.
+	 * @param square The square to clear
+	 */
+	void removePiece(int square) {
+		int type = board[square];
+		if(type == Piece.EMPTY)
+			return;
+		long bit = 1L << square;
+		int color = colorOf(type);
+		pieces[type] &= ~bit;
+		colors[color] &= ~bit;
+		occupied &= ~bit;
+		board[square] = Piece.EMPTY;
+		key ^= Zobrist.PIECES[type][square];
+		middlegameScore -= Evaluation.MIDDLEGAME[type][square];
+		endgameScore -= Evaluation.ENDGAME[type][square];
+		phase -= Evaluation.PHASE_WEIGHTS[type];
+		// Fill the gap in the list with its last square
+		int last = pieceList[color][--pieceCount[color]];
+		pieceList[color][listIndex[square]] = last;
+		listIndex[last] = listIndex[square];
+		if(type == Piece.WHITE_KING || type == Piece.BLACK_KING)
+			kingSquares[color] = NO_SQUARE;
+	}
+
+	/**
+	 * Makes a move in place. The move has to be at least pseudo-legal.
+	 * The returned undo record packs the captured piece (bits 0-3), the castling rights (bits 4-7), the en passant
+	 * square plus one (bits 8-14) and the halfmove clock (bits 15-30) from before the move.
+	 * @param move The packed move
+	 * @return The undo record to pass to <code>unmakeMove</code>
+	 */
+	long makeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int moveType = Move.type(move);
+		int pieceType = board[from];
+		boolean white = whiteToMove;
+		boolean isPawn = pieceType == Piece.WHITE_PAWN || pieceType == Piece.BLACK_PAWN;
+		int captureSquare = moveType == MoveRules.EN_PASSANT ? (white ? to - 8 : to + 8) : to;
+		int captured = board[captureSquare];
+		long undo = captured | castlingRights << 4 | (enPassantSquare + 1) << 8 | (long) halfmoveClock << 15;
+		if(historyLength == keyHistory.length)
+			keyHistory = Arrays.copyOf(keyHistory, historyLength * 2);
+		keyHistory[historyLength++] = key;
+
+		if(captured != Piece.EMPTY)
+			removePiece(captureSquare);
+		removePiece(from);
+		putPiece(to, moveType == MoveRules.PROMOTION ? Move.promotion(move) : pieceType);
+		if(moveType == MoveRules.CASTLE) {
+			int rook = white ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
+			if(to > from) { // KINGSIDE
+				removePiece(to + 1);
+				putPiece(to - 1, rook);
+			} else { // QUEENSIDE
+				removePiece(to - 2);
+				putPiece(to + 1, rook);
+			}
+		}
+
+		key ^= Zobrist.CASTLING[castlingRights];
+		castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+		key ^= Zobrist.CASTLING[castlingRights];
+		// Only remember the en passant square if an enemy pawn can actually capture onto it
+		if(enPassantSquare != NO_SQUARE)
+			key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+		enPassantSquare = NO_SQUARE;
+		if(isPawn && Math.abs(to - from) == 16) {
+			int skipped = (from + to) / 2;
+			int color = white ? Piece.WHITE : Piece.BLACK;
+			if((Attacks.PAWN[color][skipped] & pieces[white ? Piece.BLACK_PAWN : Piece.WHITE_PAWN]) != 0) {
+				enPassantSquare = skipped;
+				key ^= Zobrist.EN_PASSANT_FILE[skipped & 7];
+			}
+		}
+		key ^= Zobrist.BLACK_TO_MOVE;
+		halfmoveClock = isPawn || captured != Piece.EMPTY ? 0 : halfmoveClock + 1;
+		if(!white)
+			fullmoveNumber++;
+		whiteToMove = !white;
+		return undo;
+	}
+
+	/**
+	 * Takes back a move made with <code>makeMove</code>.
+	 * @param move The packed move
+	 * @param undo The undo record <code>makeMove</code> returned
+	 */
+	void unmakeMove(int move, long undo) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int moveType = Move.type(move);
+		whiteToMove = !whiteToMove;
+		boolean white = whiteToMove;
+		if(!white)
+			fullmoveNumber--;
+
+		int pieceType = board[to];
+		if(moveType == MoveRules.PROMOTION)
+			pieceType = white ? Piece.WHITE_PAWN : Piece.BLACK_PAWN;
+		removePiece(to);
+		putPiece(from, pieceType);
+		if(moveType == MoveRules.CASTLE) {
+			int rook = white ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
+			if(to > from) { // KINGSIDE
+				removePiece(to - 1);
+				putPiece(to + 1, rook);
+			} else { // QUEENSIDE
+				removePiece(to + 1);
+				putPiece(to - 2, rook);
+			}
+		}
+		int captured = (int) (undo & 15);
+		if(captured != Piece.EMPTY)
+			putPiece(moveType == MoveRules.EN_PASSANT ? (white ? to - 8 : to + 8) : to, captured);
+
+		castlingRights = (int) (undo >>> 4) & 15;
+		enPassantSquare = (int) ((undo >>> 8) & 127) - 1;
+		halfmoveClock = (int) (undo >>> 15) & 0xFFFF;
+		key = keyHistory[--historyLength];
+	}
+
+	/**
+	 * Counts how often the current position occurred before. Only positions since the last capture or pawn move
+	 * are compared, and only every second one, since the side to move has to match.
+	 * @return The number of earlier occurrences
+	 */
+	int repetitionCount() {
+		int count = 0;
+		int earliest = Math.max(historyLength - halfmoveClock, 0);
+		for(int i = historyLength - 2; i >= earliest; i -= 2) {
+			if(keyHistory[i] == key)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Checks for a draw by threefold repetition.
+	 * @return Whether the current position has now occurred three times
+	 */
+	boolean isThreefoldRepetition() {
+		return repetitionCount() >= 2;
+	}
+
+	/**
+	 * Gets the piece on a square.
+	 * @param square The square to check
+	 * @return The <code>Piece</code> type constant, <code>Piece.EMPTY</code> if none
+	 */
+	int pieceAt(int square) {
+		return board[square];
+	}
+
+	/**
+	 * Gets the square of a side's king.
+	 * @param color <code>Piece.WHITE</code> or <code>Piece.BLACK</code>
+	 * @return The king's square, <code>NO_SQUARE</code> if there isn't one
+	 */
+	int kingSquare(int color) {
+		return kingSquares[color];
+	}
+
+	/**
+	 * Gets the color of the side to move.
+	 * @return <code>Piece.WHITE</code> or <code>Piece.BLACK</code>
+	 */
+	int sideToMove() {
+		return whiteToMove ? Piece.WHITE : Piece.BLACK;
+	}
+
+	/**
+	 * Gets the color of a piece type.
+	 * @param type The <code>Piece</code> type constant
+	 * @return <code>Piece.WHITE</code>, <code>Piece.BLACK</code> or <code>Piece.EMPTY</code>
+	 */
+	static int colorOf(int type) {
+		if(type == Piece.EMPTY)
+			return Piece.EMPTY;
+		return type <= Piece.WHITE_KING ? Piece.WHITE : Piece.BLACK;
+	}
+
+	/**
+	 * Converts grid coordinates from <code>BoardPanel</code> to a square number.
+	 * @param rank The grid rank, 1 (rank 8) to 8 (rank 1)
+	 * @param file The grid file, 1 (file a) to 8 (file h)
+	 * @return The square number
+	 */
+	static int toSquare(int rank, int file) {
+		return (8 - rank) * 8 + file - 1;
+	}
+
+	/**
+	 * Gets the grid rank of a square.
+	 * @param square The square number
+	 * @return The grid rank, 1 (rank 8) to 8 (rank 1)
+	 */
+	static int gridRank(int square) {
+		return 8 - (square >>> 3);
+	}
+
+	/**
+	 * Gets the grid file of a square.
+	 * @param square The square number
+	 * @return The grid file, 1 (file a) to 8 (file h)
+	 */
+	static int gridFile(int square) {
+		return (square & 7) + 1;
+	}
+
+	/**
+	 * Builds a position from a FEN string. The move counters may be left out.
+	 * @param fen The FEN string
+	 * @return The new position
+	 * @throws IllegalArgumentException If the string isn't valid FEN
+	 */
+	static Position fromFen(String fen) {
+		Position position = new Position();
+		Fen.parse(fen, position);
+		return position;
+	}
+
+	/**
+	 * Writes this position as a FEN string.
+	 * @return The FEN string
+	 */
+	String toFen() {
+		return Fen.toString(this);
+	}
+
+	/**
+	 * Builds a position from a <code>BoardPanel</code> grid. The grid only holds piece placement, so the castling
+	 * rights are passed in; the en passant square comes from the last move in <code>doneMoveStack</code>.
+	 * @param grid The 10x10 grid of pieces
+	 * @param castlingRights The castling rights, as bits of <code>ALL_CASTLING</code>
+	 * @param doneMoveStack All completed moves, most recent first
+	 * @param whiteToMove The team to move
+	 * @return The new position
+	 */
+	static Position fromGrid(Piece[][] grid, int castlingRights, ArrayDeque<State> doneMoveStack, boolean whiteToMove) {
+		Position position = new Position();
+		for(int rank = 1; rank <= 8; rank++) {
+			for(int file = 1; file <= 8; file++) {
+				int type = grid[rank][file].getType();
+				if(type != Piece.EMPTY)
+					position.putPiece(toSquare(rank, file), type);
+			}
+		}
+		position.whiteToMove = whiteToMove;
+		position.castlingRights = castlingRights;
+
+		// EN PASSANT
+		State lastState = doneMoveStack == null ? null : doneMoveStack.peek();
+		if(lastState != null) {
+			int lastMove = lastState.getMove();
+			int pushedPawn = position.pieceAt(Move.to(lastMove));
+			if((pushedPawn == Piece.WHITE_PAWN || pushedPawn == Piece.BLACK_PAWN)
+					&& Position.colorOf(pushedPawn) != position.sideToMove()
+					&& Math.abs(Move.to(lastMove) - Move.from(lastMove)) == 16)
+				position.enPassantSquare = (Move.from(lastMove) + Move.to(lastMove)) / 2;
+		}
+		position.dropUselessEnPassant();
+		position.key = Zobrist.computeKey(position);
+		return position;
+	}
+
+	/**
+	 * Forgets the en passant square if no pawn can capture onto it, the same way <code>makeMove</code> does,
+	 * so equal positions get equal keys.
+	 */
+	void dropUselessEnPassant() {
+		if(enPassantSquare == NO_SQUARE)
+			return;
+		long pawns = pieces[whiteToMove ? Piece.WHITE_PAWN : Piece.BLACK_PAWN];
+		if((Attacks.PAWN[whiteToMove ? Piece.BLACK : Piece.WHITE][enPassantSquare] & pawns) == 0)
+			enPassantSquare = NO_SQUARE;
+	}
+
+	/**
+	 * Writes this position into a <code>BoardPanel</code> grid, as shared <code>Piece</code> instances.
+	 * @param grid The 10x10 grid of pieces to update
+	 */
+	void toGrid(Piece[][] grid) {
+		for(int square = 0; square < 64; square++)
+			grid[gridRank(square)][gridFile(square)] = Piece.of(board[square]);
+	}
+}
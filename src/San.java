@@ -0,0 +1,182 @@
+/**
+ * <code>San</code> class. This is not instantiated, only reading and writing moves in Standard Algebraic Notation,
+ * as used in PGN: "Nbd7", "exd5", "e8=Q+", "O-O".
+ * Reading matches the text against the legal moves from <code>MoveRules</code>, so only legal moves come back, and
+ * is lenient about what people write: check and annotation marks are ignored, and castling may use zeros.
+ * Writing adds a file or rank of the starting square only when another piece of the same kind could also move there.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+abstract class San {
+	// CONSTANTS //
+	// SAN letter of each white piece type, indexed by the Piece constants; pawns have none
+	private static final String PIECE_LETTERS = "  BNRQK";
+
+	// METHODS //
+
+	/**
+	 * Finds the legal move a SAN token stands for
+	 * @param position The position the move is played in
+	 * @param san The text holding the token
+	 * @param start Where the token starts
+	 * @param end Where the token ends, exclusive
+	 * @param moves A buffer of at least <code>Move.MAX_MOVES</code> moves, overwritten
+	 * @return The move, <code>Move.NONE</code> if the token isn't one legal move: illegal, ambiguous or garbled
+	 */
+	static int parse(Position position, CharSequence san, int start, int end, int[] moves) {
+		// Drop check marks and annotations like "+", "#", "!?"
+		while(end > start && "+#!?".indexOf(san.charAt(end - 1)) >= 0)
+			end--;
+		if(end - start < 2)
+			return Move.NONE;
+		int count = MoveRules.generateLegalMoves(position, moves);
+
+		char first = san.charAt(start);
+		if(first == 'O' || first == '0') {
+			boolean queenside = end - start >= 5;
+			for(int i = 0; i < count; i++) {
+				int move = moves[i];
+				if(Move.type(move) == MoveRules.CASTLE && (Move.to(move) < Move.from(move)) == queenside)
+					return move;
+			}
+			return Move.NONE;
+		}
+
+		// Piece letter in front, promotion behind, target square just before it
+		int piece = Piece.WHITE_PAWN;
+		int letter = PIECE_LETTERS.indexOf(first);
+		if(letter > 0) {
+			piece = letter;
+			start++;
+		}
+		int promotion = Piece.EMPTY;
+		if(end - start >= 3) {
+			int promoted = PIECE_LETTERS.indexOf(Character.toUpperCase(san.charAt(end - 1)));
+			if(promoted >= Piece.WHITE_BISHOP && promoted <= Piece.WHITE_QUEEN && piece == Piece.WHITE_PAWN) {
+				promotion = promoted;
+				end--;
+				if(san.charAt(end - 1) == '=')
+					end--;
+			}
+		}
+		if(end - start < 2)
+			return Move.NONE;
+		int toFile = san.charAt(end - 2) - 'a';
+		int toRank = san.charAt(end - 1) - '1';
+		if(toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7)
+			return Move.NONE;
+		int to = toRank * 8 + toFile;
+		end -= 2;
+
+		// Whatever is left: a starting file and/or rank, and a capture mark
+		int fromFile = -1;
+		int fromRank = -1;
+		for(int i = start; i < end; i++) {
+			char c = san.charAt(i);
+			if(c >= 'a' && c <= 'h')
+				fromFile = c - 'a';
+			else if(c >= '1' && c <= '8')
+				fromRank = c - '1';
+			else if(c != 'x' && c != ':' && c != '-')
+				return Move.NONE;
+		}
+
+		int offset = position.whiteToMove ? 0 : 6;
+		int found = Move.NONE;
+		for(int i = 0; i < count; i++) {
+			int move = moves[i];
+			int from = Move.from(move);
+			if(Move.to(move) != to || position.pieceAt(from) != piece + offset || Move.type(move) == MoveRules.CASTLE
+					|| (fromFile >= 0 && (from & 7) != fromFile) || (fromRank >= 0 && from >>> 3 != fromRank))
+				continue;
+			if(Move.type(move) == MoveRules.PROMOTION) {
+				// A promotion with no piece given is taken as a queen
+				int promoted = Move.promotion(move) - offset;
+				if(promoted != (promotion == Piece.EMPTY ? Piece.WHITE_QUEEN : promotion))
+					continue;
+			} else if(promotion != Piece.EMPTY)
+				continue;
+			if(found != Move.NONE)
+				return Move.NONE; // Ambiguous
+			found = move;
+		}
+		return found;
+	}
+
+	/**
+	 * Finds the legal move a SAN string stands for.
+	 * @param position The position the move is played in
+	 * @param san The move, like "Nf3"
+	 * @return The move, <code>Move.NONE</code> if the string isn't one legal move
+	 */
+	static int parse(Position position, String san) {
+		return parse(position, san, 0, san.length(), new int[Move.MAX_MOVES]);
+	}
+
+	/**
+	 * Writes a move in SAN, with "+" for check and "#" for mate
+	 * @param position The position the move is played in; changed during the call, but restored
+	 * @param move A legal move
+	 * @param moves A buffer of at least <code>Move.MAX_MOVES</code> moves, overwritten
+	 * @param san Where to append the move
+	 */
+	static void write(Position position, int move, int[] moves, StringBuilder san) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int type = Move.type(move);
+		int piece = position.pieceAt(from);
+		int offset = position.whiteToMove ? 0 : 6;
+		if(type == MoveRules.CASTLE)
+			san.append(to > from ? "O-O" : "O-O-O");
+		else {
+			boolean capture = position.pieceAt(to) != Piece.EMPTY || type == MoveRules.EN_PASSANT;
+			if(piece - offset == Piece.WHITE_PAWN) {
+				if(capture)
+					san.append((char) ('a' + (from & 7)));
+			} else {
+				san.append(PIECE_LETTERS.charAt(piece - offset));
+				// Name the starting file, else the rank, else both, if another piece like it could go there too
+				boolean ambiguous = false;
+				boolean sameFile = false;
+				boolean sameRank = false;
+				int count = MoveRules.generateLegalMoves(position, moves);
+				for(int i = 0; i < count; i++) {
+					int other = Move.from(moves[i]);
+					if(other == from || Move.to(moves[i]) != to || position.pieceAt(other) != piece)
+						continue;
+					ambiguous = true;
+					sameFile |= (other & 7) == (from & 7);
+					sameRank |= other >>> 3 == from >>> 3;
+				}
+				if(ambiguous && (!sameFile || sameRank))
+					san.append((char) ('a' + (from & 7)));
+				if(ambiguous && sameFile)
+					san.append((char) ('1' + (from >>> 3)));
+			}
+			if(capture)
+				san.append('x');
+			san.append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+			if(type == MoveRules.PROMOTION)
+				san.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move) - offset));
+		}
+
+		long undo = position.makeMove(move);
+		if(MoveRules.isKingChecked(position, position.sideToMove()))
+			san.append(MoveRules.hasLegalMove(position) ? '+' : '#');
+		position.unmakeMove(move, undo);
+	}
+
+	/**
+	 * Writes a move in SAN, with "+" for check and "#" for mate.
+	 * @param position The position the move is played in; changed during the call, but restored
+	 * @param move A legal move
+	 * @return The move, like "Nbd7"
+	 */
+	static String toString(Position position, int move) {
+		StringBuilder san = new StringBuilder(8);
+		write(position, move, new int[Move.MAX_MOVES], san);
+		return san.toString();
+	}
+}
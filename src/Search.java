@@ -0,0 +1,562 @@
+import java.util.Arrays;
+
+/**
+ * <code>Search</code> class. Finds the best move in a position with a negamax alpha-beta search: principal variation
+ * search inside iterative deepening, limited by depth, time or nodes, and stoppable from another thread.
+ * At the horizon a quiescence search plays out captures, so the score isn't taken in the middle of an exchange.
+ * Each instance searches its own copy of the position, so it can run off the Swing event thread. Results are cached in a
+ * <code>TranspositionTable</code>, which can be kept between searches.
+ * With more than one thread the search is Lazy SMP: helper searches run the same iterations on their own position
+ * copies and history tables, sharing only the table, so each finds the cutoffs the others stored.
+ * For analysis the search can keep several lines: each iteration searches the root once per line, leaving out the
+ * first moves of the lines already found. Finished lines are published as they come, for other threads to show.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.12
+ * @since 18 OCT 2026
+ */
+class Search {
+	// CONSTANTS //
+	static final int INFINITY = 32000;
+	static final int MATE = 31000;      // score of delivering mate now; mate in n plies scores MATE - n
+	static final int MAX_PLY = 128;
+	static final int MAX_DEPTH = 64;
+	// How often, in nodes, the clock and node budget are checked
+	static final int CHECK_INTERVAL = 1023;
+	// Margin for delta pruning: a capture that can't lift the score to within this of alpha isn't searched
+	static final int DELTA_MARGIN = 200;
+
+	// FIELDS //
+	Position position;
+	TranspositionTable table;
+	MovePicker[] pickers;  // one per ply
+	int[][] killers;       // two quiet moves per ply that caused cutoffs, newest first
+	int[] rootMoves;
+	int[][] pvTable;       // principal variation found at each ply
+	int[] pvLength;
+	int[] previousPv;      // principal variation of the last iteration, searched first in the next
+	int previousPvLength;
+	int[][] history;       // quiet move cutoff counts, 1st index -> piece type, 2nd index -> target square
+	int[] exchangeGains;   // scratch for MoveRules.staticExchange
+	int threadCount;
+	Search[] helpers;      // one per extra thread, reused between searches
+	Thread[] helperThreads; // the threads running the helpers, null when not searching; guarded by this
+	int lineCount;         // how many best lines to find, 1 outside analysis
+	int[] excludedMoves;   // root moves left out of this root search: the first moves of the lines already found
+	int excludedCount;
+	// Lines found so far, best first: depth, score, then the moves. Replaced, never changed, so any thread may read it
+	volatile int[][] lines;
+	Listener listener;     // told of every finished iteration, null for none; never set on helpers
+
+	volatile boolean stopped;
+	long nodes;
+	long nodeLimit;        // 0 for none
+	volatile long deadline; // System.nanoTime() to stop at, 0 for none; set late by ponderHit
+	long startTime;
+	long tableProbes;
+	long tableHits;
+
+	int bestMove;
+	int bestScore;
+	int completedDepth;
+
+	/**
+	 * Receives progress from a running search.
+	 */
+	interface Listener {
+		/**
+		 * Called on the search thread after each iteration completes.
+		 * @param search The search, whose <code>completedDepth</code>, <code>bestScore</code> and principal
+		 * variation are up to date
+		 */
+		void iterationDone(Search search);
+	}
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates a search with its own buffers and transposition table.
+	 */
+	Search() {
+		this(new TranspositionTable());
+	}
+
+	/**
+	 * Creates a search with its own buffers.
+	 * @param table The transposition table to use; it may be shared with other searches
+	 */
+	Search(TranspositionTable table) {
+		this.table = table;
+		position = new Position();
+		pickers = new MovePicker[MAX_PLY];
+		for(int ply = 0; ply < MAX_PLY; ply++)
+			pickers[ply] = new MovePicker();
+		killers = new int[MAX_PLY][2];
+		rootMoves = new int[Move.MAX_MOVES];
+		pvTable = new int[MAX_PLY][MAX_PLY];
+		pvLength = new int[MAX_PLY];
+		previousPv = new int[MAX_PLY];
+		history = new int[Piece.BLACK_KING + 1][64];
+		exchangeGains = new int[MoveRules.EXCHANGE_LENGTH];
+		threadCount = 1;
+		helpers = new Search[0];
+		lineCount = 1;
+		excludedMoves = new int[Move.MAX_MOVES];
+		lines = new int[0][];
+	}
+
+	// METHODS //
+
+	/**
+	 * Sets how many threads the search uses, itself included.
+	 * @param threadCount The number of threads, at least 1
+	 */
+	void setThreads(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+		Search[] helpers = new Search[this.threadCount - 1];
+		for(int i = 0; i < helpers.length; i++)
+			helpers[i] = i < this.helpers.length ? this.helpers[i] : new Search(table);
+		this.helpers = helpers;
+	}
+
+	/**
+	 * Sets how many of the best lines the search finds. Only the main thread searches more than one; helpers keep
+	 * filling the table.
+	 * @param lineCount The number of lines, at least 1
+	 */
+	void setLines(int lineCount) {
+		this.lineCount = Math.max(1, lineCount);
+	}
+
+	/**
+	 * Clears a stop so the search can be run again. Call it before starting the thread that runs <code>think</code>,
+	 * never on that thread, or a <code>stop</code> sent in between is lost. A new search needs no reset.
+	 */
+	void reset() {
+		stopped = false;
+		for(Search helper : helpers)
+			helper.stopped = false;
+	}
+
+	/**
+	 * Searches a position with iterative deepening until a limit is hit or <code>stop</code> is called. The stop flag
+	 * is left as it is, so a search stopped before this is called returns at once with any legal move.
+	 * @param root The position to search; it is copied, not changed
+	 * @param maxDepth The deepest iteration to run
+	 * @param timeMillis How long to search, 0 for no limit
+	 * @param maxNodes How many nodes to search, 0 for no limit
+	 * @return The best move found, <code>Move.NONE</code> if there are no legal moves
+	 */
+	int think(Position root, int maxDepth, long timeMillis, long maxNodes) {
+		prepare(root);
+		table.newSearch();
+		nodeLimit = maxNodes;
+		deadline = timeMillis > 0 ? startTime + timeMillis * 1000000 : 0;
+
+		// Fall back to any legal move if not even depth 1 completes
+		bestMove = MoveRules.generateLegalMoves(position, rootMoves) > 0 ? rootMoves[0] : Move.NONE;
+		if(bestMove == Move.NONE)
+			return Move.NONE;
+
+		// Half the helpers start one ply deeper, so the threads don't all search the same tree at once
+		// Each helper thread takes this thread's priority when created, and setHelperPriority changes it later
+		Thread[] threads = new Thread[helpers.length];
+		synchronized(this) {
+			for(int i = 0; i < helpers.length; i++) {
+				final Search helper = helpers[i];
+				final int startDepth = 1 + i % 2;
+				helper.prepare(root);
+				threads[i] = new Thread(() -> helper.iterate(startDepth, maxDepth), "Search helper " + (i + 1));
+				threads[i].setDaemon(true);
+				threads[i].start();
+			}
+			helperThreads = threads;
+		}
+		iterate(1, maxDepth);
+		for(int i = 0; i < helpers.length; i++) {
+			helpers[i].stopped = true;
+			try {
+				threads[i].join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized(this) {
+			helperThreads = null;
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Resets the search state for a new root position.
+	 */
+	private void prepare(Position root) {
+		position.copyFrom(root);
+		nodes = 0;
+		tableProbes = 0;
+		tableHits = 0;
+		nodeLimit = 0;
+		deadline = 0;
+		startTime = System.nanoTime();
+		completedDepth = 0;
+		bestScore = 0;
+		previousPvLength = 0;
+		excludedCount = 0;
+		lines = new int[0][];
+		for(int[] scores : history)
+			Arrays.fill(scores, 0);
+		for(int[] moves : killers)
+			Arrays.fill(moves, Move.NONE);
+	}
+
+	/**
+	 * Runs the iterative deepening loop.
+	 * @param startDepth The first depth to search
+	 * @param maxDepth The deepest iteration to run
+	 */
+	private void iterate(int startDepth, int maxDepth) {
+		int lineCount = Math.min(this.lineCount, MoveRules.generateLegalMoves(position, rootMoves));
+		for(int depth = startDepth; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+			int score = 0;
+			for(int line = 0; line < lineCount && !stopped; line++) {
+				excludedCount = line;
+				int lineScore = negamax(depth, 0, -INFINITY, INFINITY);
+				if(stopped)
+					break;
+				excludedMoves[line] = pvTable[0][0];
+				publishLine(line, depth, lineScore);
+				if(line == 0) {
+					score = lineScore;
+					bestMove = pvTable[0][0];
+					previousPvLength = pvLength[0];
+					System.arraycopy(pvTable[0], 0, previousPv, 0, previousPvLength);
+				}
+			}
+			excludedCount = 0;
+			if(stopped)
+				break;
+			completedDepth = depth;
+			bestScore = score;
+			if(listener != null)
+				listener.iterationDone(this);
+			// A forced mate this close can't be improved on by searching deeper, unless other lines are wanted
+			if(lineCount == 1 && Math.abs(score) >= MATE - depth)
+				break;
+			// The next iteration takes several times longer, so don't start one that can't finish
+			if(deadline != 0 && System.nanoTime() - startTime > (deadline - startTime) / 2)
+				break;
+		}
+	}
+
+	/**
+	 * Puts a time limit on a running search that had none, such as one started while pondering. The limit counts
+	 * from the start of the search, so time already spent pondering counts towards it, and a search that has run
+	 * past it stops at once. Can be called from any thread.
+	 * @param timeMillis How long the whole search may take
+	 */
+	void ponderHit(long timeMillis) {
+		deadline = startTime + timeMillis * 1000000;
+	}
+
+	/**
+	 * Sets the priority of the helper threads of a running search, such as one started at low priority while
+	 * pondering. The thread that called <code>think</code> is left to its owner. Can be called from any thread.
+	 * @param priority The thread priority
+	 */
+	synchronized void setHelperPriority(int priority) {
+		if(helperThreads != null)
+			for(Thread thread : helperThreads)
+				thread.setPriority(priority);
+	}
+
+	/**
+	 * Publishes a line just found at the root, in place of the line of an earlier iteration that starts with the
+	 * same move, and keeps the lines sorted by depth, then score.
+	 * @param line Which line of this iteration it is, 0 for the best
+	 * @param depth The iteration's depth
+	 * @param score The line's score
+	 */
+	private void publishLine(int line, int depth, int score) {
+		int[] found = new int[2 + pvLength[0]];
+		found[0] = depth;
+		found[1] = score;
+		System.arraycopy(pvTable[0], 0, found, 2, pvLength[0]);
+		int[][] old = lines;
+		int[][] updated = new int[Math.min(lineCount, old.length + 1)][];
+		updated[0] = found;
+		int count = 1;
+		for(int i = 0; i < old.length && count < updated.length; i++)
+			if(old[i][2] != found[2])
+				updated[count++] = old[i];
+		updated = Arrays.copyOf(updated, count);
+		Arrays.sort(updated, (a, b) -> a[0] != b[0] ? b[0] - a[0] : b[1] - a[1]);
+		lines = updated;
+	}
+
+	/**
+	 * Asks a running search to stop as soon as possible, or one about to start to return at once. Stays in effect
+	 * until <code>reset</code>. Can be called from any thread.
+	 */
+	void stop() {
+		stopped = true;
+		for(Search helper : helpers)
+			helper.stopped = true;
+	}
+
+	/**
+	 * Gets the nodes searched so far by every thread. Helper counts are read without synchronization, so the total
+	 * may lag slightly while the search runs.
+	 * @return The node count
+	 */
+	long totalNodes() {
+		long total = nodes;
+		for(Search helper : helpers)
+			total += helper.nodes;
+		return total;
+	}
+
+	/**
+	 * Gets the principal variation of the last completed iteration.
+	 * @return The moves, best first
+	 */
+	int[] getPrincipalVariation() {
+		int[] pv = new int[previousPvLength];
+		System.arraycopy(previousPv, 0, pv, 0, pv.length);
+		return pv;
+	}
+
+	/**
+	 * Gets how often the transposition table had the position searched.
+	 * @return Hits per probe, from 0 to 1
+	 */
+	double tableHitRate() {
+		return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+	}
+
+	/**
+	 * Gets the search time so far.
+	 * @return The time since <code>think</code> was called, in milliseconds
+	 */
+	long elapsedMillis() {
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+
+	/**
+	 * Searches one node with principal variation search: the first move gets the full window, the rest a null
+	 * window, re-searched only if they turn out better.
+	 * @param depth Plies left to search
+	 * @param ply Plies from the root
+	 * @param alpha The score the side to move is already guaranteed
+	 * @param beta The score the opponent is already guaranteed, negated
+	 * @return The score for the side to move
+	 */
+	private int negamax(int depth, int ply, int alpha, int beta) {
+		pvLength[ply] = ply;
+		if(ply > 0 && (position.halfmoveClock >= 100 || position.repetitionCount() > 0
+				|| MoveRules.isInsufficientMaterial(position)))
+			return 0;
+		if(ply > 0 && Long.bitCount(position.occupied) <= Bitbase.MAX_PIECES) {
+			int probe = Bitbase.probe(position);
+			if(probe != Bitbase.NOT_FOUND) {
+				int result = Bitbase.result(probe);
+				if(result == Bitbase.DRAW)
+					return 0;
+				int mate = MATE - ply - Bitbase.plies(probe);
+				return result == Bitbase.WIN ? mate : -mate;
+			}
+		}
+		if(ply >= MAX_PLY - 1)
+			return Evaluation.evaluate(position);
+		boolean inCheck = MoveRules.isKingChecked(position, position.sideToMove());
+		if(inCheck) // Look one ply further when in check, so mates aren't pushed past the horizon
+			depth++;
+		if(depth <= 0)
+			return quiescence(ply, alpha, beta);
+		if((++nodes & CHECK_INTERVAL) == 0)
+			checkLimits();
+		if(stopped)
+			return 0;
+
+		// A deep enough stored result settles the node, except on the principal variation where the line is wanted
+		boolean pvNode = beta - alpha > 1;
+		tableProbes++;
+		long entry = table.probe(position.key);
+		int hashMove = Move.NONE;
+		if(entry != 0) {
+			tableHits++;
+			hashMove = TranspositionTable.move(entry);
+			int score = TranspositionTable.scoreFromTable(TranspositionTable.score(entry), ply);
+			int bound = TranspositionTable.bound(entry);
+			if(!pvNode && TranspositionTable.depth(entry) >= depth && (bound == TranspositionTable.EXACT
+					|| (bound == TranspositionTable.LOWER && score >= beta)
+					|| (bound == TranspositionTable.UPPER && score <= alpha)))
+				return score;
+		}
+
+		// Follow the last iteration's line where the table has nothing
+		if(hashMove == Move.NONE && ply < previousPvLength)
+			hashMove = previousPv[ply];
+		MovePicker picker = pickers[ply];
+		picker.reset(position, hashMove, killers[ply][0], killers[ply][1], history);
+		boolean excluding = ply == 0 && excludedCount > 0;
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = Move.NONE;
+		int moveCount = 0;
+		int move;
+		while((move = picker.next()) != Move.NONE) {
+			if(excluding && isExcluded(move))
+				continue;
+			boolean quiet = !MoveRules.isCapture(position, move);
+			long undo = position.makeMove(move);
+			int score;
+			if(moveCount++ == 0)
+				score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			else {
+				score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+				if(score > alpha && score < beta)
+					score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			}
+			position.unmakeMove(move, undo);
+			if(stopped)
+				return 0;
+
+			if(score > bestScore) {
+				bestScore = score;
+				if(score > alpha) {
+					alpha = score;
+					bestMove = move;
+					updatePrincipalVariation(ply, move);
+					if(alpha >= beta) {
+						if(quiet)
+							rememberCutoff(move, depth, ply);
+						break;
+					}
+				}
+			}
+		}
+		if(moveCount == 0)
+			return inCheck ? -MATE + ply : 0;
+		// With moves left out, the root's score isn't its real score
+		if(excluding)
+			return bestScore;
+		int bound = bestScore >= beta ? TranspositionTable.LOWER
+				: bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		table.store(position.key, bestMove, TranspositionTable.scoreToTable(bestScore, ply), depth, bound);
+		return bestScore;
+	}
+
+	/**
+	 * Searches captures and promotions only, until the position is quiet. The side to move may also stand pat on
+	 * the static score, since it isn't forced to capture. In check every evasion is searched instead.
+	 * @param ply Plies from the root
+	 * @param alpha The score the side to move is already guaranteed
+	 * @param beta The score the opponent is already guaranteed, negated
+	 * @return The score for the side to move
+	 */
+	private int quiescence(int ply, int alpha, int beta) {
+		pvLength[ply] = ply;
+		if((++nodes & CHECK_INTERVAL) == 0)
+			checkLimits();
+		if(stopped)
+			return 0;
+		if(ply >= MAX_PLY - 1)
+			return Evaluation.evaluate(position);
+
+		boolean inCheck = MoveRules.isKingChecked(position, position.sideToMove());
+		int bestScore = -INFINITY;
+		int standPat = 0;
+		MovePicker picker = pickers[ply];
+		if(inCheck)
+			picker.reset(position, Move.NONE, Move.NONE, Move.NONE, history);
+		else {
+			standPat = Evaluation.evaluate(position);
+			if(standPat >= beta)
+				return standPat;
+			if(standPat > alpha)
+				alpha = standPat;
+			bestScore = standPat;
+			picker.resetCaptures(position);
+		}
+
+		int moveCount = 0;
+		int move;
+		while((move = picker.next()) != Move.NONE) {
+			moveCount++;
+			if(!inCheck) {
+				// Delta pruning: even winning the piece outright can't get back to alpha
+				int gain = Move.type(move) == MoveRules.EN_PASSANT ? Evaluation.PIECE_VALUES[Piece.WHITE_PAWN]
+						: Evaluation.PIECE_VALUES[position.pieceAt(Move.to(move))];
+				if(Move.type(move) == MoveRules.PROMOTION)
+					gain += Evaluation.PIECE_VALUES[Move.promotion(move)] - Evaluation.PIECE_VALUES[Piece.WHITE_PAWN];
+				if(standPat + gain + DELTA_MARGIN <= alpha)
+					continue;
+				// Captures that lose material in the exchange can't help either
+				if(MoveRules.staticExchange(position, move, exchangeGains) < 0)
+					continue;
+			}
+			long undo = position.makeMove(move);
+			int score = -quiescence(ply + 1, -beta, -alpha);
+			position.unmakeMove(move, undo);
+			if(stopped)
+				return 0;
+			if(score > bestScore) {
+				bestScore = score;
+				if(score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					if(alpha >= beta)
+						break;
+				}
+			}
+		}
+		if(inCheck && moveCount == 0)
+			return -MATE + ply;
+		return bestScore;
+	}
+
+	/**
+	 * Checks whether a root move is left out of this root search.
+	 */
+	private boolean isExcluded(int move) {
+		for(int i = 0; i < excludedCount; i++)
+			if(excludedMoves[i] == move)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Records a quiet move that caused a cutoff, as a killer for this ply and in the history table.
+	 */
+	private void rememberCutoff(int move, int depth, int ply) {
+		if(killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		int[] scores = history[position.pieceAt(Move.from(move))];
+		scores[Move.to(move)] += depth * depth;
+		// Keep the scores well inside int range, and let old cutoffs fade
+		if(scores[Move.to(move)] > 1 << 20)
+			for(int[] pieceScores : history)
+				for(int square = 0; square < 64; square++)
+					pieceScores[square] >>= 1;
+	}
+
+	/**
+	 * Makes a move plus the line below it the principal variation at this ply.
+	 */
+	private void updatePrincipalVariation(int ply, int move) {
+		pvTable[ply][ply] = move;
+		System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+		pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+	}
+
+	/**
+	 * Stops the search if the time or node budget has run out.
+	 */
+	private void checkLimits() {
+		if((deadline != 0 && System.nanoTime() >= deadline) || (nodeLimit != 0 && totalNodes() >= nodeLimit))
+			stop();
+	}
+}
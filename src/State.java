@@ -1,27 +1,37 @@
 /**
- * <code>State</code> class. Logs board state at a point in time.
+ * <code>State</code> class. Logs one move and what it takes to undo it.
  *
  * @author Chris W. Bao, Ben C. Megan
- * @version 0.9.3
+ * @version 0.9.4
  * @since 23 APR 2020
  */
 public class State {
-    private final Piece[][] board;
+    private final int move;
+    private final long undo;
     
     // CONSTRUCTOR
     
     /**
-     * Constructor; stores a board state as a 2D array of <code>Piece</code>s.
+     * Constructor; stores a packed move and the undo record <code>Position.makeMove</code> returned for it.
      */
-    State(Piece[][] board) {
-        this.board = board;
+    State(int move, long undo) {
+        this.move = move;
+        this.undo = undo;
     }
     
     /**
-     * Getter method to return the board.
-     * @return the board state stored.
+     * Getter method to return the move.
+     * @return the packed move stored.
      */
-    Piece[][] getBoard() {
-        return board;
+    int getMove() {
+        return move;
+    }
+    
+    /**
+     * Getter method to return the undo record.
+     * @return the undo record stored.
+     */
+    long getUndo() {
+        return undo;
     }
 }
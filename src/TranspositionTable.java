@@ -0,0 +1,203 @@
+import java.util.Arrays;
+
+/**
+ * <code>TranspositionTable</code> class. Remembers search results by position key, so positions reached again by a
+ * different move order aren't searched twice.
+ * Entries live in one flat <code>long[]</code>, two longs each: the key XOR the data, then the data. A torn entry
+ * written by two threads at once then fails the key check instead of returning garbage, so no locking is needed.
+ * Entries are grouped in buckets of two: the first slot keeps the deepest result, the second takes whatever comes.
+ * Results from earlier searches are aged out through a generation counter.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+class TranspositionTable {
+	// CONSTANTS //
+	static final int DEFAULT_MB = 16;
+	static final int BUCKET_LONGS = 4;   // 2 slots of 2 longs = 32 bytes
+	// Bound types; 0 is left unused so valid data is never 0
+	static final int EXACT = 1;
+	static final int LOWER = 2;          // the score is at least this (fail high)
+	static final int UPPER = 3;          // the score is at most this (fail low)
+
+	// Data layout: move 0-18, score 19-34, depth 35-42, bound 43-44, generation 45-52
+	private static final int SCORE_SHIFT = 19;
+	private static final int DEPTH_SHIFT = 35;
+	private static final int BOUND_SHIFT = 43;
+	private static final int GENERATION_SHIFT = 45;
+
+	// FIELDS //
+	long[] entries;
+	int bucketMask;
+	int sizeMB;
+	int generation;     // 8 bits, bumped at the start of every search
+
+	// CONSTRUCTORS //
+
+	/**
+	 * Creates a table of the default size.
+	 */
+	TranspositionTable() {
+		this(DEFAULT_MB);
+	}
+
+	/**
+	 * Creates a table
+	 * @param sizeMB The size in megabytes, rounded down to a power of two
+	 */
+	TranspositionTable(int sizeMB) {
+		resize(sizeMB);
+	}
+
+	// METHODS //
+
+	/**
+	 * Reallocates the table, dropping everything in it
+	 * @param sizeMB The new size in megabytes, rounded down to a power of two
+	 */
+	void resize(int sizeMB) {
+		long buckets = Long.highestOneBit(Math.max(1, sizeMB) * (1L << 20) / (BUCKET_LONGS * 8));
+		buckets = Math.min(buckets, 1L << 28);
+		this.sizeMB = (int) (buckets * BUCKET_LONGS * 8 >> 20);
+		entries = new long[(int) buckets * BUCKET_LONGS];
+		bucketMask = (int) buckets - 1;
+		generation = 0;
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	void clear() {
+		Arrays.fill(entries, 0);
+		generation = 0;
+	}
+
+	/**
+	 * Marks the start of a new search, so entries from older ones get replaced first.
+	 */
+	void newSearch() {
+		generation = (generation + 1) & 0xFF;
+	}
+
+	/**
+	 * Looks up a position
+	 * @param key The position's Zobrist key
+	 * @return The packed data, 0 if the position isn't stored
+	 */
+	long probe(long key) {
+		int index = ((int) key & bucketMask) * BUCKET_LONGS;
+		long[] entries = this.entries;
+		for(int slot = index; slot < index + BUCKET_LONGS; slot += 2) {
+			long data = entries[slot + 1];
+			if((entries[slot] ^ data) == key && data != 0)
+				return data;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores a search result. The deep slot is replaced only by a result at least as deep, or one from a newer
+	 * search; otherwise the result goes in the other slot.
+	 * @param key The position's Zobrist key
+	 * @param move The best move found, <code>Move.NONE</code> if none
+	 * @param score The score, already adjusted with <code>scoreToTable</code>
+	 * @param depth The depth searched
+	 * @param bound <code>EXACT</code>, <code>LOWER</code> or <code>UPPER</code>
+	 */
+	void store(long key, int move, int score, int depth, int bound) {
+		int index = ((int) key & bucketMask) * BUCKET_LONGS;
+		long[] entries = this.entries;
+		int slot = index + 2;
+		long deepData = entries[index + 1];
+		if((entries[index] ^ deepData) == key || depth >= depth(deepData) || generation(deepData) != generation)
+			slot = index;
+		long old = entries[slot + 1];
+		// A fail-low result has no best move; keep the one an earlier search found
+		if(move == Move.NONE && (entries[slot] ^ old) == key)
+			move = move(old);
+		long data = move | (long) (score & 0xFFFF) << SCORE_SHIFT | (long) (depth & 0xFF) << DEPTH_SHIFT
+				| (long) bound << BOUND_SHIFT | (long) generation << GENERATION_SHIFT;
+		entries[slot] = key ^ data;
+		entries[slot + 1] = data;
+	}
+
+	/**
+	 * Estimates how full the table is from its first thousand slots.
+	 * @return Slots used by the current search, per thousand
+	 */
+	int hashfull() {
+		int used = 0;
+		int slots = Math.min(1000, entries.length / 2);
+		for(int i = 0; i < slots; i++) {
+			long data = entries[i * 2 + 1];
+			if(data != 0 && generation(data) == generation)
+				used++;
+		}
+		return used * 1000 / slots;
+	}
+
+	/**
+	 * Gets the best move out of packed data.
+	 */
+	static int move(long data) {
+		return (int) data & 0x7FFFF;
+	}
+
+	/**
+	 * Gets the score out of packed data.
+	 */
+	static int score(long data) {
+		return (short) (data >>> SCORE_SHIFT);
+	}
+
+	/**
+	 * Gets the depth out of packed data.
+	 */
+	static int depth(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+	}
+
+	/**
+	 * Gets the bound type out of packed data.
+	 */
+	static int bound(long data) {
+		return (int) (data >>> BOUND_SHIFT) & 3;
+	}
+
+	/**
+	 * Gets the generation out of packed data.
+	 */
+	static int generation(long data) {
+		return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+	}
+
+	/**
+	 * Converts a mate score from distance-to-root to distance-to-this-position, so it stays right when the position
+	 * is reached at a different ply
+	 * @param score The score
+	 * @param ply Plies from the root
+	 * @return The score to store
+	 */
+	static int scoreToTable(int score, int ply) {
+		if(score >= Search.MATE - Search.MAX_PLY)
+			return score + ply;
+		if(score <= -Search.MATE + Search.MAX_PLY)
+			return score - ply;
+		return score;
+	}
+
+	/**
+	 * Converts a stored score back to distance-to-root
+	 * @param score The stored score
+	 * @param ply Plies from the root
+	 * @return The score
+	 */
+	static int scoreFromTable(int score, int ply) {
+		if(score >= Search.MATE - Search.MAX_PLY)
+			return score - ply;
+		if(score <= -Search.MATE + Search.MAX_PLY)
+			return score + ply;
+		return score;
+	}
+}
@@ -0,0 +1,325 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * <code>Uci</code> class. Runs the engine headless, speaking the UCI protocol over standard input and output, so
+ * chess GUIs and test harnesses can play against it. Started by <code>Driver --uci</code>; nothing from Swing or AWT
+ * is touched, so it starts quickly and runs on servers without a display.
+ * Commands are read on the calling thread and each search runs on a thread of its own, so a <code>stop</code> reaches
+ * the search as soon as it is read. The search checks its stop flag every thousand nodes or so, well under a
+ * millisecond. Under <code>go infinite</code> and <code>go ponder</code> the move is held back, even if the search
+ * ends by itself, until <code>stop</code>, or <code>ponderhit</code> for a ponder search, as the protocol requires.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.2
+ * @since 18 OCT 2026
+ */
+class Uci implements Search.Listener {
+	// CONSTANTS //
+	static final String NAME = "JChess";
+	static final String AUTHORS = "Chris W. Bao, Ben C. Megan";
+	static final int MAX_HASH_MB = 4096;
+	static final int MAX_THREADS = 256;
+	// Moves to plan for when the clock is given without a move count
+	static final int DEFAULT_MOVES_TO_GO = 30;
+
+	// FIELDS //
+	BufferedReader input;
+	PrintStream output;
+	Position position;
+	TranspositionTable table;
+	int threadCount;
+	Search search;      // the running search, null if none
+	Thread thread;      // the thread running it
+	// Opened when the search may send bestmove: at once, or not before stop under go infinite or go ponder
+	CountDownLatch release;
+	boolean pondering;  // under go ponder, until ponderhit
+	boolean infinite;   // under go infinite
+	long ponderTime;    // how long to search after ponderhit, in milliseconds, 0 for no limit
+	int[] moveBuffer;
+
+	// CONSTRUCTOR //
+
+	/**
+	 * Creates an engine talking over the given streams.
+	 * @param input Where commands come from
+	 * @param output Where replies go
+	 */
+	Uci(InputStream input, PrintStream output) {
+		this.input = new BufferedReader(new InputStreamReader(input));
+		this.output = output;
+		position = new Position();
+		table = new TranspositionTable();
+		threadCount = 1;
+		moveBuffer = new int[Move.MAX_MOVES];
+	}
+
+	// METHODS //
+
+	/**
+	 * Reads and answers commands until <code>quit</code> or the end of the input.
+	 * @throws IOException If the input can't be read
+	 */
+	void run() throws IOException {
+		String line;
+		while((line = input.readLine()) != null) {
+			String[] tokens = line.trim().split("\\s+");
+			switch(tokens[0]) {
+				case "uci":
+					send("id name " + NAME);
+					send("id author " + AUTHORS);
+					send("option name Hash type spin default " + TranspositionTable.DEFAULT_MB + " min 1 max " + MAX_HASH_MB);
+					send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+					send("uciok");
+					break;
+				case "isready":
+					send("readyok");
+					break;
+				case "ucinewgame":
+					waitForSearch();
+					table.clear();
+					break;
+				case "setoption":
+					waitForSearch();
+					setOption(tokens);
+					break;
+				case "position":
+					waitForSearch();
+					setPosition(tokens);
+					break;
+				case "go":
+					waitForSearch();
+					go(tokens);
+					break;
+				case "ponderhit":
+					ponderHit();
+					break;
+				case "stop":
+					waitForSearch();
+					break;
+				case "quit":
+					waitForSearch();
+					return;
+				default:
+					// Unknown commands are ignored, as the protocol asks
+			}
+		}
+		waitForSearch();
+	}
+
+	/**
+	 * Handles <code>setoption name &lt;id&gt; value &lt;x&gt;</code>.
+	 */
+	private void setOption(String[] tokens) {
+		String name = valueAfter(tokens, "name");
+		String value = valueAfter(tokens, "value");
+		if(name == null || value == null)
+			return;
+		try {
+			if(name.equalsIgnoreCase("Hash"))
+				table.resize(Math.min(MAX_HASH_MB, Math.max(1, Integer.parseInt(value))));
+			else if(name.equalsIgnoreCase("Threads"))
+				threadCount = Math.min(MAX_THREADS, Math.max(1, Integer.parseInt(value)));
+		} catch(NumberFormatException e) {
+			send("info string Bad value for " + name + ": " + value);
+		}
+	}
+
+	/**
+	 * Handles <code>position [startpos | fen &lt;fen&gt;] [moves &lt;move&gt; ...]</code>.
+	 */
+	private void setPosition(String[] tokens) {
+		int movesAt = tokens.length;
+		for(int i = 1; i < tokens.length; i++)
+			if(tokens[i].equals("moves"))
+				movesAt = i;
+		try {
+			if(tokens.length > 1 && tokens[1].equals("fen"))
+				position = Position.fromFen(String.join(" ", Arrays.copyOfRange(tokens, 2, movesAt)));
+			else
+				position.setStartPosition();
+		} catch(RuntimeException e) {
+			send("info string Bad FEN: " + e.getMessage());
+			position.setStartPosition();
+			return;
+		}
+		for(int i = movesAt + 1; i < tokens.length; i++) {
+			int move = findMove(tokens[i]);
+			if(move == Move.NONE) {
+				send("info string Illegal move: " + tokens[i]);
+				return;
+			}
+			position.makeMove(move);
+		}
+	}
+
+	/**
+	 * Handles <code>go</code> with <code>depth</code>, <code>movetime</code>, <code>nodes</code>,
+	 * <code>infinite</code>, <code>ponder</code>, or the clock: <code>wtime</code>, <code>btime</code>,
+	 * <code>winc</code>, <code>binc</code> and <code>movestogo</code>. When pondering, the time limit only starts at
+	 * <code>ponderhit</code>.
+	 */
+	private void go(String[] tokens) {
+		int depth = Search.MAX_DEPTH;
+		long moveTime = 0;
+		long nodes = 0;
+		long time = 0;
+		long increment = 0;
+		int movesToGo = DEFAULT_MOVES_TO_GO;
+		infinite = false;
+		pondering = false;
+		for(String token : tokens) {
+			if(token.equals("infinite"))
+				infinite = true;
+			else if(token.equals("ponder"))
+				pondering = true;
+		}
+		String ourTime = position.whiteToMove ? "wtime" : "btime";
+		String ourIncrement = position.whiteToMove ? "winc" : "binc";
+		try {
+			for(int i = 1; i + 1 < tokens.length; i++) {
+				String value = tokens[i + 1];
+				if(tokens[i].equals("depth"))
+					depth = Math.max(1, Integer.parseInt(value));
+				else if(tokens[i].equals("movetime"))
+					moveTime = Math.max(1, Long.parseLong(value));
+				else if(tokens[i].equals("nodes"))
+					nodes = Math.max(1, Long.parseLong(value));
+				else if(tokens[i].equals(ourTime))
+					time = Math.max(1, Long.parseLong(value));
+				else if(tokens[i].equals(ourIncrement))
+					increment = Long.parseLong(value);
+				else if(tokens[i].equals("movestogo"))
+					movesToGo = Math.max(1, Integer.parseInt(value));
+			}
+		} catch(NumberFormatException e) {
+			send("info string Bad number in: " + String.join(" ", tokens));
+		}
+		// Use an even share of the clock, never more than half of what's left
+		if(moveTime == 0 && time > 0)
+			moveTime = Math.max(1, Math.min(time / 2, time / movesToGo + increment * 3 / 4));
+		if(infinite)
+			moveTime = 0;
+		ponderTime = moveTime;
+		if(pondering)
+			moveTime = 0;
+
+		final Search search = new Search(table);
+		search.setThreads(threadCount);
+		search.listener = this;
+		final Position root = new Position(position);
+		final int maxDepth = depth;
+		final long timeMillis = moveTime;
+		final long maxNodes = nodes;
+		final CountDownLatch release = new CountDownLatch(infinite || pondering ? 1 : 0);
+		this.search = search;
+		this.release = release;
+		thread = new Thread(() -> {
+			int move = search.think(root, maxDepth, timeMillis, maxNodes);
+			try {
+				release.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			int[] pv = search.getPrincipalVariation();
+			send("bestmove " + Move.toString(move)
+					+ (pv.length > 1 && pv[0] == move ? " ponder " + Move.toString(pv[1]) : ""));
+		}, "UCI search");
+		thread.start();
+	}
+
+	/**
+	 * Reports a finished iteration as an <code>info</code> line. Called on the search thread.
+	 * @param search The running search
+	 */
+	@Override
+	public void iterationDone(Search search) {
+		long millis = search.elapsedMillis();
+		long nodes = search.totalNodes();
+		int score = search.bestScore;
+		StringBuilder info = new StringBuilder("info depth ").append(search.completedDepth).append(" score ");
+		if(Math.abs(score) >= Search.MATE - Search.MAX_PLY) {
+			int moves = (Search.MATE - Math.abs(score) + 1) / 2;
+			info.append("mate ").append(score > 0 ? moves : -moves);
+		} else
+			info.append("cp ").append(score);
+		info.append(" nodes ").append(nodes).append(" nps ").append(nodes * 1000 / Math.max(1, millis))
+				.append(" time ").append(millis).append(" hashfull ").append(table.hashfull()).append(" pv");
+		for(int move : search.getPrincipalVariation())
+			info.append(' ').append(Move.toString(move));
+		send(info.toString());
+	}
+
+	/**
+	 * Handles <code>ponderhit</code>: the expected move was played, so the ponder search goes on as a normal one, with
+	 * its time limit counted from now.
+	 */
+	private void ponderHit() {
+		if(search == null || !pondering)
+			return;
+		pondering = false;
+		if(ponderTime > 0)
+			search.ponderHit(search.elapsedMillis() + ponderTime);
+		if(!infinite)
+			release.countDown();
+	}
+
+	/**
+	 * Stops the running search, if any, and waits for it to report its move.
+	 */
+	private void waitForSearch() {
+		if(search == null)
+			return;
+		search.stop();
+		release.countDown();
+		try {
+			thread.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		search = null;
+		thread = null;
+		release = null;
+	}
+
+	/**
+	 * Finds the legal move written in coordinate notation.
+	 * @return The move, <code>Move.NONE</code> if it isn't legal
+	 */
+	private int findMove(String text) {
+		int count = MoveRules.generateLegalMoves(position, moveBuffer);
+		for(int i = 0; i < count; i++)
+			if(Move.toString(moveBuffer[i]).equals(text))
+				return moveBuffer[i];
+		return Move.NONE;
+	}
+
+	/**
+	 * Gets the words after a keyword, up to the next keyword of <code>setoption</code>.
+	 * @return The words joined by spaces, <code>null</code> if the keyword isn't there
+	 */
+	private static String valueAfter(String[] tokens, String keyword) {
+		for(int i = 0; i < tokens.length; i++) {
+			if(!tokens[i].equals(keyword))
+				continue;
+			StringBuilder value = new StringBuilder();
+			for(int j = i + 1; j < tokens.length && !tokens[j].equals("name") && !tokens[j].equals("value"); j++)
+				value.append(value.length() > 0 ? " " : "").append(tokens[j]);
+			return value.toString();
+		}
+		return null;
+	}
+
+	/**
+	 * Writes one line of output. Synchronized, as both the command and search threads write.
+	 */
+	private synchronized void send(String line) {
+		output.println(line);
+		output.flush();
+	}
+}
@@ -0,0 +1,105 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <code>UciCheck</code> class. Feeds <code>Uci</code> short scripts that start and stop searches back to back, as a
+ * GUI does when the user clicks quickly, and checks that each one ends promptly with one <code>bestmove</code> per
+ * search. A <code>stop</code> that reaches a search before its thread gets going must not be lost, so each script is
+ * run many times to hit the race.
+ * Run without arguments; exits with 1 if any script hangs or answers wrongly.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+abstract class UciCheck {
+	// CONSTANTS //
+	static final int REPEATS = 50;
+	static final long TIMEOUT_MILLIS = 5000;   // per run; every script ends well within a second
+	// {name, commands separated by '|', expected bestmove count}
+	static final String[][] SCRIPTS = {
+			{"go infinite, stop", "position startpos|go infinite|stop|quit", "1"},
+			{"go ponder, stop", "position startpos moves e2e4|go ponder wtime 1000 btime 1000|stop|quit", "1"},
+			{"go ponder, ponderhit", "position startpos|go ponder movetime 10|ponderhit|quit", "1"},
+			{"go infinite, quit", "position startpos|go infinite|quit", "1"},
+			{"go, go, stop", "position startpos|go infinite|go infinite|stop|quit", "2"},
+			{"go, position, go, stop", "position startpos|go infinite|position startpos moves d2d4|go infinite|stop",
+					"2"},
+			{"4 threads, go infinite, stop", "setoption name Threads value 4|position startpos|go infinite|stop|quit",
+					"1"}
+	};
+
+	// METHODS //
+
+	/**
+	 * Runs a script on a fresh engine.
+	 * @param commands The commands, separated by '|'
+	 * @return The engine's output, <code>null</code> if it didn't finish within <code>TIMEOUT_MILLIS</code>
+	 */
+	static String run(String commands) throws InterruptedException {
+		byte[] input = (commands.replace('|', '\n') + "\n").getBytes(StandardCharsets.US_ASCII);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Uci uci = new Uci(new ByteArrayInputStream(input), new PrintStream(output, true));
+		Thread thread = new Thread(() -> {
+			try {
+				uci.run();
+			} catch(IOException e) {
+				throw new RuntimeException(e); // Can't happen, reading from memory
+			}
+		}, "UCI check");
+		thread.setDaemon(true);
+		thread.start();
+		thread.join(TIMEOUT_MILLIS);
+		if(thread.isAlive())
+			return null;    // left hanging; it is a daemon, so it won't keep the check from exiting
+		return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Counts the lines that start with <code>bestmove</code>.
+	 */
+	static int bestMoves(String output) {
+		int count = 0;
+		for(String line : output.split("\n"))
+			if(line.startsWith("bestmove"))
+				count++;
+		return count;
+	}
+
+	/**
+	 * Runs every script <code>REPEATS</code> times.
+	 * @param args Not used
+	 * @throws InterruptedException If interrupted while waiting for a run
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int failures = 0;
+		for(String[] script : SCRIPTS) {
+			int expected = Integer.parseInt(script[2]);
+			int hangs = 0;
+			int wrong = 0;
+			int runs = 0;
+			long start = System.nanoTime();
+			for(int i = 0; i < REPEATS; i++) {
+				String output = run(script[1]);
+				runs++;
+				if(output == null) {
+					hangs++;
+					break;      // a hung engine keeps its threads and table, so don't pile up more
+				} else if(bestMoves(output) != expected)
+					wrong++;
+			}
+			boolean passed = hangs == 0 && wrong == 0;
+			if(!passed)
+				failures++;
+			System.out.println(String.format("%-4s %-30s %d runs in %6d ms%s", passed ? "OK" : "FAIL", script[0],
+					runs, (System.nanoTime() - start) / 1000000,
+					passed ? "" : hangs > 0 ? " (hung)" : String.format(" (%d with a wrong bestmove count)", wrong)));
+		}
+		System.out.println(String.format("%d/%d passed", SCRIPTS.length - failures, SCRIPTS.length));
+		if(failures > 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * <code>Zobrist</code> class. Random keys for hashing positions. A position's key is the XOR of the keys of its pieces,
+ * castling rights, en passant file and side to move, so <code>Position</code> can update it move by move.
+ * The keys come from a fixed seed, so they are the same on every run.
+ *
+ * @author Chris W. Bao, Ben C. Megan
+ * @version 0.9.1
+ * @since 18 OCT 2026
+ */
+abstract class Zobrist {
+	// CONSTANTS //
+	static final long[][] PIECES = new long[Piece.BLACK_KING+1][64]; // 1st index -> piece type, 2nd index -> square
+	static final long[] CASTLING = new long[16];                     // indexed by the whole castlingRights value
+	static final long[] EN_PASSANT_FILE = new long[8];
+	static final long BLACK_TO_MOVE;
+
+	static {
+		long seed = 0x9E3779B97F4A7C15L;
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			for(int square = 0; square < 64; square++) {
+				seed = next(seed);
+				PIECES[type][square] = scramble(seed);
+			}
+		}
+		for(int rights = 0; rights < 16; rights++) {
+			seed = next(seed);
+			CASTLING[rights] = rights == 0 ? 0 : scramble(seed);
+		}
+		for(int file = 0; file < 8; file++) {
+			seed = next(seed);
+			EN_PASSANT_FILE[file] = scramble(seed);
+		}
+		BLACK_TO_MOVE = scramble(next(seed));
+	}
+
+	// METHODS //
+
+	/**
+	 * Advances the xorshift generator.
+	 */
+	private static long next(long seed) {
+		seed ^= seed >>> 12;
+		seed ^= seed << 25;
+		seed ^= seed >>> 27;
+		return seed;
+	}
+
+	/**
+	 * Turns a generator state into an output key.
+	 */
+	private static long scramble(long seed) {
+		return seed * 0x2545F4914F6CDD1DL;
+	}
+
+	/**
+	 * Computes the key of a position from scratch. <code>Position</code> keeps its key updated without this;
+	 * it is used when a position is set up and to cross-check the incremental key.
+	 * @param position The position to hash
+	 * @return The key
+	 */
+	static long computeKey(Position position) {
+		long key = 0;
+		for(int square = 0; square < 64; square++) {
+			if(position.pieceAt(square) != Piece.EMPTY)
+				key ^= PIECES[position.pieceAt(square)][square];
+		}
+		key ^= CASTLING[position.castlingRights];
+		if(position.enPassantSquare != Position.NO_SQUARE)
+			key ^= EN_PASSANT_FILE[position.enPassantSquare & 7];
+		if(!position.whiteToMove)
+			key ^= BLACK_TO_MOVE;
+		return key;
+	}
+}